@@ -2,11 +2,32 @@ public class AVLNode<T extends Comparable<T>> {
     private T data;
     private AVLNode<T> left;
     private AVLNode<T> right;
+    private int height;
+    private int size;
+    // Subtree aggregates kept for statistics
+    private long pathLength; // sum of node depths below this node (this node at 0)
+    private int leftHeavy;   // nodes with balance factor +1
+    private int rightHeavy;  // nodes with balance factor -1
 
     public AVLNode(T data) {
         this.data = data;
         this.left = null;
         this.right = null;
+        this.height = 1;
+        this.size = 1;
+    }
+
+    // Shallow copy, used for path copying in persistent trees
+    public AVLNode<T> copy() {
+        AVLNode<T> node = new AVLNode<>(data);
+        node.left = left;
+        node.right = right;
+        node.height = height;
+        node.size = size;
+        node.pathLength = pathLength;
+        node.leftHeavy = leftHeavy;
+        node.rightHeavy = rightHeavy;
+        return node;
     }
 
     public T getData() { return data; }
@@ -18,6 +39,21 @@ public class AVLNode<T extends Comparable<T>> {
     public AVLNode<T> getRight() { return right; }
     public void setRight(AVLNode<T> right) { this.right = right; }
 
+    public int getHeight() { return height; }
+    public void setHeight(int height) { this.height = height; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public long getPathLength() { return pathLength; }
+    public void setPathLength(long pathLength) { this.pathLength = pathLength; }
+
+    public int getLeftHeavy() { return leftHeavy; }
+    public void setLeftHeavy(int leftHeavy) { this.leftHeavy = leftHeavy; }
+
+    public int getRightHeavy() { return rightHeavy; }
+    public void setRightHeavy(int rightHeavy) { this.rightHeavy = rightHeavy; }
+
     public boolean hasLeft() { return left != null; }
     public boolean hasRight() { return right != null; }
     public boolean isLeaf() { return left == null && right == null; }
@@ -1,21 +1,96 @@
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-
-public class AVLTree<T extends Comparable<T>> {
-    private AVLNode<T> root;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// In persistent mode nodes reachable from a published root are never
+// modified: insert and delete copy the root-to-leaf path (plus the nodes a
+// rotation touches) and then publish the new root with one volatile write.
+// snapshot() is O(1) and readers of a snapshot need no locks. Writers must
+// still be serialized by the caller.
+//
+// iterator(), spliterator() and stream() walk the tree lazily. On a
+// non-persistent tree the caller must keep writers out while they are in use.
+public class AVLTree<T extends Comparable<T>> implements OrderedIndex<T> {
+    private volatile AVLNode<T> root;
+    private final boolean persistent;
+    private T replaced; // previous value found by the last upsert
+    private T computed; // result of the last persistent computeIfPresent
 
     public AVLTree() {
-        root = null;
+        this(false);
+    }
+
+    public AVLTree(boolean persistent) {
+        this(null, persistent);
+    }
+
+    private AVLTree(AVLNode<T> root, boolean persistent) {
+        this.root = root;
+        this.persistent = persistent;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    // Frozen view of the current contents, O(1). Persistent trees only.
+    public AVLTree<T> snapshot() {
+        if (!persistent) {
+            throw new IllegalStateException("Snapshots need a persistent tree");
+        }
+        return new AVLTree<>(root, true);
+    }
+
+    // Node that may be modified: a copy in persistent mode
+    private AVLNode<T> mutable(AVLNode<T> node) {
+        return persistent ? node.copy() : node;
     }
 
-    // Get height of tree
+    // Get height of tree (cached in the node)
     private int getHeight(AVLNode<T> node) {
         if (node == null) return 0;
+        return node.getHeight();
+    }
 
-        int leftHeight = getHeight(node.getLeft());
-        int rightHeight = getHeight(node.getRight());
+    // Get number of nodes in subtree (cached in the node)
+    private int getSize(AVLNode<T> node) {
+        if (node == null) return 0;
+        return node.getSize();
+    }
 
-        return Math.max(leftHeight, rightHeight) + 1;
+    // Recompute cached height, size and statistics from the children
+    private void update(AVLNode<T> node) {
+        AVLNode<T> left = node.getLeft();
+        AVLNode<T> right = node.getRight();
+        node.setHeight(Math.max(getHeight(left), getHeight(right)) + 1);
+        node.setSize(getSize(left) + getSize(right) + 1);
+
+        // Every node below is one level deeper than in its child subtree
+        int balance = getHeight(left) - getHeight(right);
+        long pathLength = node.getSize() - 1;
+        int leftHeavy = balance > 0 ? 1 : 0;
+        int rightHeavy = balance < 0 ? 1 : 0;
+        if (left != null) {
+            pathLength += left.getPathLength();
+            leftHeavy += left.getLeftHeavy();
+            rightHeavy += left.getRightHeavy();
+        }
+        if (right != null) {
+            pathLength += right.getPathLength();
+            leftHeavy += right.getLeftHeavy();
+            rightHeavy += right.getRightHeavy();
+        }
+        node.setPathLength(pathLength);
+        node.setLeftHeavy(leftHeavy);
+        node.setRightHeavy(rightHeavy);
     }
 
     // Get balance factor
@@ -26,48 +101,148 @@ public class AVLTree<T extends Comparable<T>> {
 
     // Right rotation
     private AVLNode<T> rotateRight(AVLNode<T> y) {
-        AVLNode<T> x = y.getLeft();
+        y = mutable(y);
+        AVLNode<T> x = mutable(y.getLeft());
         AVLNode<T> T2 = x.getRight();
 
         // Perform rotation
         x.setRight(y);
         y.setLeft(T2);
 
+        // Update heights and sizes (y is now below x)
+        update(y);
+        update(x);
+
         return x;
     }
 
     // Left rotation
     private AVLNode<T> rotateLeft(AVLNode<T> x) {
-        AVLNode<T> y = x.getRight();
+        x = mutable(x);
+        AVLNode<T> y = mutable(x.getRight());
         AVLNode<T> T2 = y.getLeft();
 
         // Perform rotation
         y.setLeft(x);
         x.setRight(T2);
 
+        // Update heights and sizes (x is now below y)
+        update(x);
+        update(y);
+
         return y;
     }
 
     // Public insert method
     public void insert(T data) {
-        root = insert(root, data);
+        root = insert(root, data, false);
+    }
+
+    // Insert only if no equal element exists; returns true if inserted
+    public boolean insertIfAbsent(T data) {
+        int before = getSize(root);
+        root = insert(root, data, false);
+        return getSize(root) > before;
+    }
+
+    // Insert or replace an equal element; returns the replaced element or null
+    public T upsert(T data) {
+        replaced = null;
+        root = insert(root, data, true);
+        T previous = replaced;
+        replaced = null;
+        return previous;
+    }
+
+    // Replace the element equal to key with remapping(element), in place.
+    // The result must keep the same key. Returns it, or null if key is absent.
+    public T computeIfPresent(T key, UnaryOperator<T> remapping) {
+        if (persistent) {
+            computed = null;
+            root = compute(root, key, remapping);
+            T result = computed;
+            computed = null;
+            return result;
+        }
+
+        AVLNode<T> current = root;
+
+        while (current != null) {
+            int cmp = key.compareTo(current.getData());
+
+            if (cmp == 0) {
+                T updated = remapping.apply(current.getData());
+                if (updated == null || updated.compareTo(key) != 0) {
+                    throw new IllegalArgumentException("Remapping must keep the same key");
+                }
+                current.setData(updated);
+                return updated;
+            } else if (cmp < 0) {
+                current = current.getLeft();
+            } else {
+                current = current.getRight();
+            }
+        }
+        return null;
+    }
+
+    // Persistent computeIfPresent: copies the path to the changed node
+    private AVLNode<T> compute(AVLNode<T> node, T key, UnaryOperator<T> remapping) {
+        if (node == null) return null;
+
+        int cmp = key.compareTo(node.getData());
+        AVLNode<T> copy;
+        if (cmp < 0) {
+            AVLNode<T> left = compute(node.getLeft(), key, remapping);
+            if (left == node.getLeft()) return node;
+            copy = node.copy();
+            copy.setLeft(left);
+        } else if (cmp > 0) {
+            AVLNode<T> right = compute(node.getRight(), key, remapping);
+            if (right == node.getRight()) return node;
+            copy = node.copy();
+            copy.setRight(right);
+        } else {
+            T updated = remapping.apply(node.getData());
+            if (updated == null || updated.compareTo(key) != 0) {
+                throw new IllegalArgumentException("Remapping must keep the same key");
+            }
+            computed = updated;
+            copy = node.copy();
+            copy.setData(updated);
+        }
+        return copy;
     }
 
     // Private insert method
-    private AVLNode<T> insert(AVLNode<T> node, T data) {
+    private AVLNode<T> insert(AVLNode<T> node, T data, boolean replace) {
         if (node == null) {
             return new AVLNode<>(data);
         }
 
         // Normal BST insertion
-        if (data.compareTo(node.getData()) < 0) {
-            node.setLeft(insert(node.getLeft(), data));
-        } else if (data.compareTo(node.getData()) > 0) {
-            node.setRight(insert(node.getRight(), data));
+        int cmp = data.compareTo(node.getData());
+        if (cmp < 0) {
+            AVLNode<T> left = insert(node.getLeft(), data, replace);
+            if (persistent && left == node.getLeft()) return node; // nothing changed below
+            node = mutable(node);
+            node.setLeft(left);
+        } else if (cmp > 0) {
+            AVLNode<T> right = insert(node.getRight(), data, replace);
+            if (persistent && right == node.getRight()) return node;
+            node = mutable(node);
+            node.setRight(right);
         } else {
+            if (replace) {
+                replaced = node.getData();
+                node = mutable(node);
+                node.setData(data);
+            }
             return node; // Duplicate not allowed
         }
 
+        update(node);
+
         // Get balance factor
         int balance = getBalance(node);
 
@@ -96,10 +271,29 @@ public class AVLTree<T extends Comparable<T>> {
         return node;
     }
 
+    // Replace the contents with a perfectly balanced tree built in O(n).
+    // The list must be sorted in strictly ascending order.
+    public void buildFromSorted(List<T> sorted) {
+        root = build(sorted, 0, sorted.size() - 1);
+    }
+
+    private AVLNode<T> build(List<T> sorted, int lo, int hi) {
+        if (lo > hi) return null;
+
+        int mid = (lo + hi) >>> 1;
+        AVLNode<T> node = new AVLNode<>(sorted.get(mid));
+        node.setLeft(build(sorted, lo, mid - 1));
+        node.setRight(build(sorted, mid + 1, hi));
+        update(node);
+        return node;
+    }
+
     // Search for data - FIXED
     public T search(T data) {
-        AVLNode<T> current = root;
+        return search(root, data);
+    }
 
+    private T search(AVLNode<T> current, T data) {
         while (current != null) {
             int cmp = data.compareTo(current.getData());
 
@@ -115,6 +309,25 @@ public class AVLTree<T extends Comparable<T>> {
         return null; // Not found
     }
 
+    // Search by a key that is not itself an element, e.g. a character
+    // range of a larger text. The comparator must order keys the same way
+    // the elements order themselves.
+    public <K> T search(K key, KeyComparator<K, T> comparator) {
+        AVLNode<T> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(key, current.getData());
+
+            if (cmp == 0) {
+                return current.getData();
+            } else if (cmp < 0) {
+                current = current.getLeft();
+            } else {
+                current = current.getRight();
+            }
+        }
+        return null;
+    }
+
     // Delete data - FIXED
     public void delete(T data) {
         root = delete(root, data);
@@ -124,10 +337,17 @@ public class AVLTree<T extends Comparable<T>> {
         if (node == null) return null;
 
         // Find the node to delete
-        if (data.compareTo(node.getData()) < 0) {
-            node.setLeft(delete(node.getLeft(), data));
-        } else if (data.compareTo(node.getData()) > 0) {
-            node.setRight(delete(node.getRight(), data));
+        int cmp = data.compareTo(node.getData());
+        if (cmp < 0) {
+            AVLNode<T> left = delete(node.getLeft(), data);
+            if (persistent && left == node.getLeft()) return node; // not found
+            node = mutable(node);
+            node.setLeft(left);
+        } else if (cmp > 0) {
+            AVLNode<T> right = delete(node.getRight(), data);
+            if (persistent && right == node.getRight()) return node;
+            node = mutable(node);
+            node.setRight(right);
         } else {
             // Node found
             if (node.getLeft() == null && node.getRight() == null) {
@@ -142,11 +362,14 @@ public class AVLTree<T extends Comparable<T>> {
             } else {
                 // Case 4: Two children
                 AVLNode<T> successor = getMinValueNode(node.getRight());
+                node = mutable(node);
                 node.setData(successor.getData());
                 node.setRight(delete(node.getRight(), successor.getData()));
             }
         }
 
+        update(node);
+
         // Check balance and rotate if needed
         int balance = getBalance(node);
 
@@ -186,17 +409,24 @@ public class AVLTree<T extends Comparable<T>> {
 
     // Get all data in sorted order
     public List<T> getInOrder() {
-        List<T> result = new ArrayList<>();
-        inOrderTraversal(root, result);
+        AVLNode<T> top = root;
+        List<T> result = new ArrayList<>(getSize(top));
+        new InOrderIterator<>(top).forEachRemaining(result::add);
         return result;
     }
 
-    private void inOrderTraversal(AVLNode<T> node, List<T> result) {
-        if (node != null) {
-            inOrderTraversal(node.getLeft(), result);
-            result.add(node.getData());
-            inOrderTraversal(node.getRight(), result);
-        }
+    @Override
+    public Iterator<T> iterator() {
+        return new InOrderIterator<>(root);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return new InOrderSpliterator<>(null, root, persistent);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
     }
 
     // Get tree height
@@ -206,20 +436,165 @@ public class AVLTree<T extends Comparable<T>> {
 
     // Get number of nodes
     public int getSize() {
-        return countNodes(root);
+        return getSize(root);
     }
 
-    private int countNodes(AVLNode<T> node) {
-        if (node == null) return 0;
-        return 1 + countNodes(node.getLeft()) + countNodes(node.getRight());
+    // Average number of comparisons for a successful search, O(1)
+    public double getAverageSearchDepth() {
+        AVLNode<T> top = root;
+        if (top == null) return 0;
+        return 1.0 + (double) top.getPathLength() / top.getSize();
+    }
+
+    // Nodes by balance factor: {-1 (right heavy), 0, +1 (left heavy)}, O(1)
+    public int[] getBalanceHistogram() {
+        AVLNode<T> top = root;
+        if (top == null) return new int[3];
+        int leftHeavy = top.getLeftHeavy();
+        int rightHeavy = top.getRightHeavy();
+        return new int[] {rightHeavy, top.getSize() - leftHeavy - rightHeavy, leftHeavy};
+    }
+
+    // Number of elements strictly smaller than data
+    public int rank(T data) {
+        return rank(root, data);
+    }
+
+    private int rank(AVLNode<T> current, T data) {
+        int rank = 0;
+
+        while (current != null) {
+            int cmp = data.compareTo(current.getData());
+
+            if (cmp <= 0) {
+                current = current.getLeft();
+            } else {
+                rank += getSize(current.getLeft()) + 1;
+                current = current.getRight();
+            }
+        }
+        return rank;
+    }
+
+    // Get the k-th smallest element (0-based), or null if out of range
+    public T select(int k) {
+        AVLNode<T> current = root;
+        if (k < 0 || k >= getSize(current)) {
+            return null;
+        }
+
+        while (current != null) {
+            int leftSize = getSize(current.getLeft());
+
+            if (k < leftSize) {
+                current = current.getLeft();
+            } else if (k == leftSize) {
+                return current.getData();
+            } else {
+                k -= leftSize + 1;
+                current = current.getRight();
+            }
+        }
+        return null;
+    }
+
+    // Number of elements between lo and hi (both inclusive)
+    public int countRange(T lo, T hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        }
+
+        AVLNode<T> top = root; // read once so the counts agree
+        int count = rank(top, hi) - rank(top, lo);
+        if (search(top, hi) != null) {
+            count++;
+        }
+        return count;
+    }
+
+    // Elements with lo <= x < hi in sorted order, O(log n + k)
+    public List<T> range(T lo, T hi) {
+        List<T> result = new ArrayList<>();
+        collectFrom(root, lo, x -> x.compareTo(hi) < 0, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    // Up to limit elements from lo upwards, stopping at the first one for
+    // which inRange fails. Seeks to lo and never visits the rest of the tree.
+    public List<T> rangeWhile(T lo, Predicate<T> inRange, int limit) {
+        List<T> result = new ArrayList<>();
+        collectFrom(root, lo, inRange, limit, result);
+        return result;
+    }
+
+    // Returns false once the range has ended or the limit is reached
+    private boolean collectFrom(AVLNode<T> node, T lo, Predicate<T> inRange, int limit, List<T> result) {
+        if (node == null) return true;
+
+        int cmp = lo.compareTo(node.getData());
+        if (cmp < 0 && !collectFrom(node.getLeft(), lo, inRange, limit, result)) {
+            return false;
+        }
+        if (cmp <= 0) {
+            if (result.size() >= limit || !inRange.test(node.getData())) {
+                return false;
+            }
+            result.add(node.getData());
+        }
+        return collectFrom(node.getRight(), lo, inRange, limit, result);
+    }
+
+    // Words starting with p (ignoring case), at most limit of them. The
+    // prefix is folded once and compared against each word's folded key.
+    public List<T> prefix(String p, int limit) {
+        List<T> result = new ArrayList<>();
+        collectPrefix(root, Word.foldKey(p), limit, result);
+        return result;
+    }
+
+    // Returns false once past the prefix or the limit is reached
+    private boolean collectPrefix(AVLNode<T> node, String prefix, int limit, List<T> result) {
+        if (node == null) return true;
+
+        Word word = (Word) node.getData();
+        int cmp = Word.KEY_ORDER.compare(prefix, word);
+        if (cmp < 0 && !collectPrefix(node.getLeft(), prefix, limit, result)) {
+            return false;
+        }
+        if (cmp <= 0) {
+            if (result.size() >= limit || !word.getKey().startsWith(prefix)) {
+                return false;
+            }
+            result.add(node.getData());
+        }
+        return collectPrefix(node.getRight(), prefix, limit, result);
+    }
+
+    public List<T> nextAfter(T after, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, getSize(root)));
+        collectAfter(root, after, limit, result);
+        return result;
+    }
+
+    // Returns false once the limit is reached
+    private boolean collectAfter(AVLNode<T> node, T after, int limit, List<T> result) {
+        if (node == null) return true;
+
+        if (after == null || after.compareTo(node.getData()) < 0) {
+            if (!collectAfter(node.getLeft(), after, limit, result) || result.size() >= limit) {
+                return false;
+            }
+            result.add(node.getData());
+        }
+        return collectAfter(node.getRight(), after, limit, result);
     }
 
     // Search by Arabic meaning
     public Word searchByArabic(String arabic) {
-        List<T> allWords = getInOrder();
-        for (T word : allWords) {
+        String key = ArabicNormalizer.normalize(arabic);
+        for (T word : this) {
             Word w = (Word) word;
-            if (w.getArabicMeaning().equals(arabic)) {
+            if (w.getArabicKey().equals(key)) {
                 return w;
             }
         }
@@ -229,9 +604,8 @@ public class AVLTree<T extends Comparable<T>> {
     // Get words by type
     public List<Word> getWordsByType(String type) {
         List<Word> result = new ArrayList<>();
-        List<T> allWords = getInOrder();
 
-        for (T word : allWords) {
+        for (T word : this) {
             Word w = (Word) word;
             if (w.getType().equalsIgnoreCase(type)) {
                 result.add(w);
@@ -244,4 +618,133 @@ public class AVLTree<T extends Comparable<T>> {
     public boolean isEmpty() {
         return root == null;
     }
+
+    // Root node, for AVLTreeCheck
+    AVLNode<T> getRoot() {
+        return root;
+    }
+
+    // In-order walk with an explicit stack holding the path to the next node.
+    // The stack never grows past the tree height.
+    private static class InOrderIterator<T extends Comparable<T>> implements Iterator<T> {
+        private AVLNode<?>[] stack;
+        private int depth;
+
+        InOrderIterator(AVLNode<T> top) {
+            stack = new AVLNode<?>[top == null ? 0 : top.getHeight()];
+            pushLeft(top);
+        }
+
+        private void pushLeft(AVLNode<T> node) {
+            while (node != null) {
+                if (depth == stack.length) {
+                    AVLNode<?>[] grown = new AVLNode<?>[depth * 2 + 1];
+                    System.arraycopy(stack, 0, grown, 0, depth);
+                    stack = grown;
+                }
+                stack[depth++] = node;
+                node = node.getLeft();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            AVLNode<T> node = (AVLNode<T>) stack[--depth];
+            stack[depth] = null;
+            pushLeft(node.getRight());
+            return node.getData();
+        }
+    }
+
+    // Covers an optional first element followed by a whole subtree. Until
+    // traversal starts it splits by handing off (first, rest.left) and
+    // keeping (rest.data, rest.right), so both halves know their exact size.
+    private static class InOrderSpliterator<T extends Comparable<T>> implements Spliterator<T> {
+        private T first;
+        private AVLNode<T> rest;
+        private final boolean immutable;
+        private InOrderIterator<T> walk; // set once traversal starts
+        private long remaining;
+
+        InOrderSpliterator(T first, AVLNode<T> rest, boolean immutable) {
+            this.first = first;
+            this.rest = rest;
+            this.immutable = immutable;
+            this.remaining = (first != null ? 1 : 0) + (rest != null ? rest.getSize() : 0);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            if (first != null) {
+                T next = first;
+                first = null;
+                action.accept(next);
+                return true;
+            }
+            if (walk == null) {
+                walk = new InOrderIterator<>(rest);
+                rest = null;
+            }
+            action.accept(walk.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (remaining == 0) {
+                return;
+            }
+            remaining = 0;
+            if (first != null) {
+                action.accept(first);
+                first = null;
+            }
+            if (walk == null) {
+                walk = new InOrderIterator<>(rest);
+                rest = null;
+            }
+            walk.forEachRemaining(action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (walk != null || rest == null || (first == null && rest.getLeft() == null)) {
+                return null;
+            }
+            InOrderSpliterator<T> prefix = new InOrderSpliterator<>(first, rest.getLeft(), immutable);
+            first = rest.getData();
+            rest = rest.getRight();
+            remaining -= prefix.remaining;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            int flags = ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+            return immutable ? flags | IMMUTABLE : flags;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return null; // natural order
+        }
+    }
 }
\ No newline at end of file
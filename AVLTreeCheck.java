@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+// Self-checking harness for AVLTree, in both modes.
+// Usage: java AVLTreeCheck [elements] [seed]
+// Inserts the elements in random order, then runs random inserts and
+// deletes against a TreeSet. Along the way it walks every node to verify
+// the cached height, size and statistics, the balance factor and the
+// ordering, and it counts the comparisons of each insert and delete: an AVL
+// tree of n nodes is at most 1.44 * log2(n + 2) high, and an operation may
+// add two comparisons (rotation checks) to one root-to-leaf path.
+// Exits with status 1 on the first violation.
+public class AVLTreeCheck {
+    private static long comparisons;
+
+    // Element that counts how often it is compared
+    private static final class Key implements Comparable<Key> {
+        final int value;
+
+        Key(int value) {
+            this.value = value;
+        }
+
+        public int compareTo(Key other) {
+            comparisons++;
+            return Integer.compare(value, other.value);
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        if (n < 1) {
+            System.out.println("Element count must be at least 1");
+            System.exit(1);
+        }
+        run(n, seed, false);
+        run(n, seed, true);
+    }
+
+    private static void run(int n, long seed, boolean persistent) {
+        String mode = persistent ? "persistent" : "mutable";
+        AVLTree<Key> tree = new AVLTree<>(persistent);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(seed);
+        int interval = Math.max(1, n / 20);
+
+        List<Integer> order = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+
+        long insertTotal = 0;
+        long insertMax = 0;
+        int inserts = 0;
+        for (int i = 0; i < n; i++) {
+            long used = insert(tree, order.get(i));
+            expected.add(order.get(i));
+            insertTotal += used;
+            insertMax = Math.max(insertMax, used);
+            inserts++;
+            if (i < 1000 || i % interval == 0) {
+                verify(tree, expected, mode);
+            }
+        }
+        verify(tree, expected, mode);
+
+        // A snapshot taken now must not see the mixed phase below
+        AVLTree<Key> snapshot = persistent ? tree.snapshot() : null;
+        List<Integer> frozen = new ArrayList<>(expected);
+
+        long deleteTotal = 0;
+        long deleteMax = 0;
+        int deletes = 0;
+        for (int i = 0; i < 2 * n; i++) {
+            int value = random.nextInt(2 * n);
+            if (random.nextBoolean()) {
+                long used = insert(tree, value);
+                expected.add(value);
+                insertTotal += used;
+                insertMax = Math.max(insertMax, used);
+                inserts++;
+            } else {
+                long used = delete(tree, value);
+                expected.remove(value);
+                deleteTotal += used;
+                deleteMax = Math.max(deleteMax, used);
+                deletes++;
+            }
+            if (i % interval == 0) {
+                verify(tree, expected, mode);
+            }
+        }
+        verify(tree, expected, mode);
+
+        if (snapshot != null) {
+            verify(snapshot, new TreeSet<>(frozen), mode + " snapshot");
+        }
+
+        System.out.println(String.format(
+                "%-10s n=%d height=%d  insert: avg %.2f max %d  delete: avg %.2f max %d  bound %d  OK",
+                mode, n, tree.getTreeHeight(),
+                (double) insertTotal / inserts, insertMax,
+                deletes == 0 ? 0 : (double) deleteTotal / deletes, deleteMax,
+                bound(tree.getSize())));
+    }
+
+    private static long insert(AVLTree<Key> tree, int value) {
+        int size = tree.getSize();
+        comparisons = 0;
+        tree.insertIfAbsent(new Key(value));
+        checkComparisons(comparisons, size, "insert " + value);
+        return comparisons;
+    }
+
+    private static long delete(AVLTree<Key> tree, int value) {
+        int size = tree.getSize();
+        comparisons = 0;
+        tree.delete(new Key(value));
+        checkComparisons(comparisons, size, "delete " + value);
+        return comparisons;
+    }
+
+    // Height limit of an AVL tree with n nodes, plus two rotation checks
+    private static int bound(int n) {
+        return (int) Math.floor(1.4405 * Math.log(n + 2) / Math.log(2) - 0.3277) + 2;
+    }
+
+    private static void checkComparisons(long used, int size, String operation) {
+        if (used > bound(size)) {
+            fail(operation + " took " + used + " comparisons on " + size + " nodes, bound " + bound(size));
+        }
+    }
+
+    private static void verify(AVLTree<Key> tree, TreeSet<Integer> expected, String mode) {
+        long saved = comparisons;
+        AVLNode<Key> root = tree.getRoot();
+        List<Integer> values = new ArrayList<>(expected.size());
+        check(root, Integer.MIN_VALUE, Integer.MAX_VALUE, values, mode);
+
+        if (!values.equals(new ArrayList<>(expected))) {
+            fail(mode + ": tree holds " + values.size() + " elements, expected " + expected.size());
+        }
+        if (tree.getSize() != expected.size()) {
+            fail(mode + ": getSize() " + tree.getSize() + ", expected " + expected.size());
+        }
+        if (tree.getTreeHeight() > bound(expected.size()) - 2) {
+            fail(mode + ": height " + tree.getTreeHeight() + " exceeds the AVL bound for " + expected.size());
+        }
+        comparisons = saved;
+    }
+
+    // Checks the subtree against values in [lo, hi] and appends it in order;
+    // returns its height
+    private static int check(AVLNode<Key> node, long lo, long hi, List<Integer> values, String mode) {
+        if (node == null) {
+            return 0;
+        }
+        int value = node.getData().value;
+        if (value < lo || value > hi) {
+            fail(mode + ": " + value + " is out of order");
+        }
+
+        AVLNode<Key> left = node.getLeft();
+        AVLNode<Key> right = node.getRight();
+        int leftHeight = check(left, lo, (long) value - 1, values, mode);
+        values.add(value);
+        int rightHeight = check(right, (long) value + 1, hi, values, mode);
+
+        int height = Math.max(leftHeight, rightHeight) + 1;
+        int balance = leftHeight - rightHeight;
+        if (balance < -1 || balance > 1) {
+            fail(mode + ": node " + value + " has balance " + balance);
+        }
+        if (node.getHeight() != height) {
+            fail(mode + ": node " + value + " caches height " + node.getHeight() + ", actual " + height);
+        }
+
+        int leftSize = left == null ? 0 : left.getSize();
+        int rightSize = right == null ? 0 : right.getSize();
+        if (node.getSize() != leftSize + rightSize + 1) {
+            fail(mode + ": node " + value + " caches size " + node.getSize());
+        }
+
+        long pathLength = node.getSize() - 1;
+        int leftHeavy = balance > 0 ? 1 : 0;
+        int rightHeavy = balance < 0 ? 1 : 0;
+        if (left != null) {
+            pathLength += left.getPathLength();
+            leftHeavy += left.getLeftHeavy();
+            rightHeavy += left.getRightHeavy();
+        }
+        if (right != null) {
+            pathLength += right.getPathLength();
+            leftHeavy += right.getLeftHeavy();
+            rightHeavy += right.getRightHeavy();
+        }
+        if (node.getPathLength() != pathLength || node.getLeftHeavy() != leftHeavy
+                || node.getRightHeavy() != rightHeavy) {
+            fail(mode + ": node " + value + " has stale statistics");
+        }
+        return height;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
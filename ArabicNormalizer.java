@@ -0,0 +1,71 @@
+// Folds Arabic spelling variants so lookups ignore them:
+//   - tashkeel (U+064B..U+065F), superscript alef (U+0670) and tatweel (U+0640) are dropped
+//   - alef forms أ إ آ ٱ become ا
+//   - taa marbuta ة becomes ه, alef maksura ى becomes ي
+// Other characters are kept as they are.
+public class ArabicNormalizer {
+    // Marks a character that is removed
+    private static final char DROP = '\uFFFF';
+
+    // Normalized form of s; returns s itself when nothing changes
+    public static String normalize(String s) {
+        if (s == null) {
+            return null;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (fold(c) != c) {
+                StringBuilder out = new StringBuilder(s.length());
+                out.append(s, 0, i);
+                append(s, i, s.length(), out);
+                return out.toString();
+            }
+        }
+        return s;
+    }
+
+    // Normalized form of text[start, end) as a new String, in one pass
+    public static String normalize(CharSequence text, int start, int end) {
+        char[] chars = new char[end - start];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = fold(text.charAt(i));
+            if (c != DROP) {
+                chars[n++] = c;
+            }
+        }
+        return new String(chars, 0, n);
+    }
+
+    // Append the normalized form of text[start, end) to out
+    public static void append(CharSequence text, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = fold(text.charAt(i));
+            if (c != DROP) {
+                out.append(c);
+            }
+        }
+    }
+
+    private static char fold(char c) {
+        if (c < '\u0622' || c > '\u0671') {
+            return c;
+        }
+        if ((c >= '\u064B' && c <= '\u065F') || c == '\u0670' || c == '\u0640') {
+            return DROP;
+        }
+        switch (c) {
+            case '\u0622': // آ
+            case '\u0623': // أ
+            case '\u0625': // إ
+            case '\u0671': // ٱ
+                return '\u0627';
+            case '\u0629': // ة
+                return '\u0647';
+            case '\u0649': // ى
+                return '\u064A';
+            default:
+                return c;
+        }
+    }
+}
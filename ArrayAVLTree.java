@@ -0,0 +1,441 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// AVL tree behind OrderedIndex like AVLTree, but with no node objects:
+// a node is an int id, and its children, height, subtree size and element
+// live at that index of parallel arrays. A tree of n words is six arrays
+// instead of n AVLNodes, so the GC has almost nothing to trace and
+// neighbouring nodes sit next to each other in memory. buildFromSorted
+// numbers the nodes in sorted order, which makes in-order walks sequential.
+//
+// Deleted ids go on a free list (chained through left[]) and are reused by
+// the next inserts. There is no persistent mode; the caller must keep
+// writers out while reading, as with a non-persistent AVLTree.
+public class ArrayAVLTree<T extends Comparable<T>> implements OrderedIndex<T> {
+    private static final int NIL = 0; // id 0 is a sentinel with height and size 0
+
+    private int[] left;
+    private int[] right;
+    private int[] height;
+    private int[] size;
+    private byte[] balance; // balance factor each node was last counted with
+    private Object[] data;
+    private int root = NIL;
+    private int next = 1;   // first id never handed out
+    private int free = NIL; // head of the free list
+    // Running totals behind the statistics, kept in step by update()
+    private long sizeTotal; // sum of all subtree sizes = total search cost
+    private int leftHeavy;
+    private int rightHeavy;
+
+    public ArrayAVLTree() {
+        this(16);
+    }
+
+    public ArrayAVLTree(int capacity) {
+        allocate(capacity + 1);
+    }
+
+    private void allocate(int capacity) {
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new int[capacity];
+        size = new int[capacity];
+        balance = new byte[capacity];
+        data = new Object[capacity];
+        sizeTotal = 0;
+        leftHeavy = 0;
+        rightHeavy = 0;
+    }
+
+    public boolean isPersistent() {
+        return false;
+    }
+
+    public OrderedIndex<T> snapshot() {
+        throw new IllegalStateException("Snapshots need a persistent tree");
+    }
+
+    @SuppressWarnings("unchecked")
+    private T data(int node) {
+        return (T) data[node];
+    }
+
+    private int newNode(T value) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (next == data.length) {
+                grow();
+            }
+            node = next++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 1;
+        size[node] = 1;
+        sizeTotal++;
+        data[node] = value;
+        return node;
+    }
+
+    private void release(int node) {
+        sizeTotal -= size[node];
+        setBalance(node, 0);
+        data[node] = null;
+        right[node] = NIL;
+        height[node] = 0;
+        size[node] = 0;
+        left[node] = free;
+        free = node;
+    }
+
+    private void grow() {
+        int capacity = data.length + (data.length >> 1) + 1;
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+        size = Arrays.copyOf(size, capacity);
+        balance = Arrays.copyOf(balance, capacity);
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    // Recompute cached height and size from the children, and move the
+    // node's old size and balance out of the running totals
+    private void update(int node) {
+        int oldSize = size[node];
+        height[node] = Math.max(height[left[node]], height[right[node]]) + 1;
+        size[node] = size[left[node]] + size[right[node]] + 1;
+        sizeTotal += size[node] - oldSize;
+        setBalance(node, getBalance(node));
+    }
+
+    private void setBalance(int node, int factor) {
+        int old = balance[node];
+        if (old > 0) leftHeavy--;
+        else if (old < 0) rightHeavy--;
+        if (factor > 0) leftHeavy++;
+        else if (factor < 0) rightHeavy++;
+        balance[node] = (byte) factor;
+    }
+
+    private int getBalance(int node) {
+        return height[left[node]] - height[right[node]];
+    }
+
+    private int rotateRight(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        right[x] = y;
+        update(y);
+        update(x);
+        return x;
+    }
+
+    private int rotateLeft(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        left[y] = x;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    // Update node after a change below it and restore the AVL property
+    private int rebalance(int node) {
+        update(node);
+        int balance = getBalance(node);
+
+        if (balance > 1) {
+            if (getBalance(left[node]) < 0) {
+                left[node] = rotateLeft(left[node]); // Left Right Case
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (getBalance(right[node]) > 0) {
+                right[node] = rotateRight(right[node]); // Right Left Case
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // Insert only if no equal element exists; returns true if inserted
+    public boolean insertIfAbsent(T value) {
+        int before = size[root];
+        root = insert(root, value);
+        return size[root] > before;
+    }
+
+    private int insert(int node, T value) {
+        if (node == NIL) {
+            return newNode(value);
+        }
+
+        // The arrays may grow during the call, so store the child only after it
+        int cmp = value.compareTo(data(node));
+        if (cmp < 0) {
+            int child = insert(left[node], value);
+            left[node] = child;
+        } else if (cmp > 0) {
+            int child = insert(right[node], value);
+            right[node] = child;
+        } else {
+            return node; // Duplicate not allowed
+        }
+        return rebalance(node);
+    }
+
+    public T computeIfPresent(T key, UnaryOperator<T> remapping) {
+        int node = find(key);
+        if (node == NIL) {
+            return null;
+        }
+        T updated = remapping.apply(data(node));
+        if (updated == null || updated.compareTo(key) != 0) {
+            throw new IllegalArgumentException("Remapping must keep the same key");
+        }
+        data[node] = updated;
+        return updated;
+    }
+
+    // Replace the contents with a perfectly balanced tree built in O(n).
+    // The list must be sorted in strictly ascending order.
+    public void buildFromSorted(List<T> sorted) {
+        int n = sorted.size();
+        allocate(n + 1);
+        next = n + 1;
+        free = NIL;
+        root = build(sorted, 0, n - 1);
+    }
+
+    // Element i of the list becomes node i + 1
+    private int build(List<T> sorted, int lo, int hi) {
+        if (lo > hi) return NIL;
+
+        int mid = (lo + hi) >>> 1;
+        int node = mid + 1;
+        data[node] = sorted.get(mid);
+        left[node] = build(sorted, lo, mid - 1);
+        right[node] = build(sorted, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    public T search(T value) {
+        int node = find(value);
+        return node == NIL ? null : data(node);
+    }
+
+    private int find(T value) {
+        int current = root;
+        while (current != NIL) {
+            int cmp = value.compareTo(data(current));
+
+            if (cmp == 0) {
+                return current;
+            }
+            current = cmp < 0 ? left[current] : right[current];
+        }
+        return NIL;
+    }
+
+    public <K> T search(K key, KeyComparator<K, T> comparator) {
+        int current = root;
+        while (current != NIL) {
+            int cmp = comparator.compare(key, data(current));
+
+            if (cmp == 0) {
+                return data(current);
+            }
+            current = cmp < 0 ? left[current] : right[current];
+        }
+        return null;
+    }
+
+    public void delete(T value) {
+        root = delete(root, value);
+    }
+
+    private int delete(int node, T value) {
+        if (node == NIL) return NIL;
+
+        int cmp = value.compareTo(data(node));
+        if (cmp < 0) {
+            left[node] = delete(left[node], value);
+        } else if (cmp > 0) {
+            right[node] = delete(right[node], value);
+        } else if (left[node] == NIL || right[node] == NIL) {
+            // At most one child: it takes this node's place
+            int child = left[node] != NIL ? left[node] : right[node];
+            release(node);
+            return child;
+        } else {
+            // Two children: take over the successor's element and remove it
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            data[node] = data[successor];
+            right[node] = delete(right[node], data(successor));
+        }
+        return rebalance(node);
+    }
+
+    public List<T> getInOrder() {
+        List<T> result = new ArrayList<>(size[root]);
+        new InOrderIterator().forEachRemaining(result::add);
+        return result;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new InOrderIterator();
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size[root],
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public int getTreeHeight() {
+        return height[root];
+    }
+
+    public int getSize() {
+        return size[root];
+    }
+
+    // Every node is counted once in the size of each subtree that holds it,
+    // i.e. depth + 1 times, so the sizes add up to the total search cost.
+    // O(1) from the running total.
+    public double getAverageSearchDepth() {
+        if (root == NIL) return 0;
+        return (double) sizeTotal / size[root];
+    }
+
+    // Nodes by balance factor: {-1 (right heavy), 0, +1 (left heavy)}, O(1)
+    public int[] getBalanceHistogram() {
+        return new int[] {rightHeavy, size[root] - leftHeavy - rightHeavy, leftHeavy};
+    }
+
+    public T select(int k) {
+        if (k < 0 || k >= size[root]) {
+            return null;
+        }
+
+        int current = root;
+        while (current != NIL) {
+            int leftSize = size[left[current]];
+
+            if (k < leftSize) {
+                current = left[current];
+            } else if (k == leftSize) {
+                return data(current);
+            } else {
+                k -= leftSize + 1;
+                current = right[current];
+            }
+        }
+        return null;
+    }
+
+    // The prefix is folded once and compared against each word's folded key
+    public List<T> prefix(String p, int limit) {
+        List<T> result = new ArrayList<>();
+        collectPrefix(root, Word.foldKey(p), limit, result);
+        return result;
+    }
+
+    // Returns false once past the prefix or the limit is reached
+    private boolean collectPrefix(int node, String prefix, int limit, List<T> result) {
+        if (node == NIL) return true;
+
+        Word word = (Word) data(node);
+        int cmp = Word.KEY_ORDER.compare(prefix, word);
+        if (cmp < 0 && !collectPrefix(left[node], prefix, limit, result)) {
+            return false;
+        }
+        if (cmp <= 0) {
+            if (result.size() >= limit || !word.getKey().startsWith(prefix)) {
+                return false;
+            }
+            result.add(data(node));
+        }
+        return collectPrefix(right[node], prefix, limit, result);
+    }
+
+    public List<T> nextAfter(T after, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, size[root]));
+        collectAfter(root, after, limit, result);
+        return result;
+    }
+
+    // Returns false once the limit is reached
+    private boolean collectAfter(int node, T after, int limit, List<T> result) {
+        if (node == NIL) return true;
+
+        if (after == null || after.compareTo(data(node)) < 0) {
+            if (!collectAfter(left[node], after, limit, result) || result.size() >= limit) {
+                return false;
+            }
+            result.add(data(node));
+        }
+        return collectAfter(right[node], after, limit, result);
+    }
+
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    // In-order walk with a stack of node ids; never deeper than the tree height
+    private class InOrderIterator implements Iterator<T> {
+        private int[] stack = new int[Math.max(1, height[root])];
+        private int depth;
+
+        InOrderIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(int node) {
+            while (node != NIL) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                node = left[node];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public T next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            int node = stack[--depth];
+            pushLeft(right[node]);
+            return data(node);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// BK-tree over English words for "did you mean" lookups.
+//
+// Each child hangs off its parent at the edit distance between the two
+// keys, so a search for words within k of a query only descends into
+// children whose distance lies in [d - k, d + k] (triangle inequality)
+// and skips most of the tree. Keys are the case-folded Word keys, since
+// the dictionary ignores case. Deleted words leave a tombstone behind; the
+// tree is rebuilt once tombstones outnumber live words.
+public class BKTree {
+    private Node root;
+    private int live;
+    private int tombstones;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(Word word) {
+        String key = word.getKey();
+        lock.writeLock().lock();
+        try {
+            insert(key, word, new Distance());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Word word) {
+        String key = word.getKey();
+        lock.writeLock().lock();
+        try {
+            Node node = find(key, new Distance());
+            if (node == null || node.word == null) {
+                return;
+            }
+            node.word = null;
+            live--;
+            tombstones++;
+            if (tombstones > live && tombstones > 64) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to limit words within maxDistance edits of query, closest first
+    public List<Word> search(String query, int maxDistance, int limit) {
+        String key = Word.foldKey(query);
+        List<Match> matches = new ArrayList<>();
+        Distance distance = new Distance();
+
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return new ArrayList<>();
+            }
+
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int d = distance.between(key, node.key);
+                if (d <= maxDistance && node.word != null) {
+                    matches.add(new Match(node.word, node.key, d));
+                }
+
+                int from = Math.max(1, d - maxDistance);
+                int to = Math.min(node.children.length - 1, d + maxDistance);
+                for (int i = from; i <= to; i++) {
+                    if (node.children[i] != null) {
+                        stack.push(node.children[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort((a, b) -> a.distance != b.distance
+                ? Integer.compare(a.distance, b.distance)
+                : a.key.compareTo(b.key));
+
+        List<Word> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            result.add(matches.get(i).word);
+        }
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, Word word, Distance distance) {
+        if (root == null) {
+            root = new Node(key, word);
+            live++;
+            return;
+        }
+
+        Node node = root;
+        while (true) {
+            int d = distance.between(key, node.key);
+            if (d == 0) {
+                if (node.word == null) {
+                    live++;
+                    tombstones--;
+                }
+                node.word = word;
+                return;
+            }
+
+            Node child = node.child(d);
+            if (child == null) {
+                node.setChild(d, new Node(key, word));
+                live++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private Node find(String key, Distance distance) {
+        Node node = root;
+        while (node != null) {
+            int d = distance.between(key, node.key);
+            if (d == 0) {
+                return node;
+            }
+            node = node.child(d);
+        }
+        return null;
+    }
+
+    // Rebuild from the live words only, dropping every tombstone
+    private void rebuild() {
+        List<Node> liveNodes = new ArrayList<>(live);
+        if (root != null) {
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                if (node.word != null) {
+                    liveNodes.add(node);
+                }
+                for (Node child : node.children) {
+                    if (child != null) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+
+        root = null;
+        live = 0;
+        tombstones = 0;
+        Distance distance = new Distance();
+        for (Node node : liveNodes) {
+            insert(node.key, node.word, distance);
+        }
+    }
+
+    private static class Node {
+        final String key;
+        Word word; // null once deleted
+        Node[] children = new Node[0]; // indexed by edit distance
+
+        Node(String key, Word word) {
+            this.key = key;
+            this.word = word;
+        }
+
+        Node child(int distance) {
+            return distance < children.length ? children[distance] : null;
+        }
+
+        void setChild(int distance, Node child) {
+            if (distance >= children.length) {
+                Node[] grown = new Node[distance + 1];
+                System.arraycopy(children, 0, grown, 0, children.length);
+                children = grown;
+            }
+            children[distance] = child;
+        }
+    }
+
+    private static class Match {
+        final Word word;
+        final String key;
+        final int distance;
+
+        Match(Word word, String key, int distance) {
+            this.word = word;
+            this.key = key;
+            this.distance = distance;
+        }
+    }
+
+    // Levenshtein distance with two reusable rows
+    private static class Distance {
+        private int[] previous = new int[32];
+        private int[] current = new int[32];
+
+        int between(String a, String b) {
+            if (a.length() < b.length()) {
+                String t = a;
+                a = b;
+                b = t;
+            }
+            int n = b.length();
+            if (previous.length <= n) {
+                previous = new int[n + 1];
+                current = new int[n + 1];
+            }
+
+            for (int j = 0; j <= n; j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                char ca = a.charAt(i - 1);
+                for (int j = 1; j <= n; j++) {
+                    int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                    current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+                            previous[j - 1] + cost);
+                }
+                int[] t = previous;
+                previous = current;
+                current = t;
+            }
+            return previous[n];
+        }
+    }
+}
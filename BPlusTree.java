@@ -0,0 +1,632 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// B+tree with up to ORDER entries per node. Elements sit only in the leaves,
+// which are linked left to right, so an in-order walk reads one array after
+// another instead of chasing a pointer per element. A lookup visits one node
+// per level (three or four for millions of words) and binary-searches a
+// small array in each, which is far kinder to the CPU cache than the ~20
+// scattered nodes of a binary tree.
+//
+// Inner nodes keep, besides their separators and children, the number of
+// elements under each child, so select() is O(log n) like in the AVL trees.
+// Nodes split when they overflow and borrow from or merge with a sibling
+// when they fall below half full.
+//
+// There is no persistent mode; the caller locks as for a non-persistent AVLTree.
+public class BPlusTree<T extends Comparable<T>> implements OrderedIndex<T> {
+    private static final int ORDER = 64;
+    private static final int MIN = ORDER / 2;
+
+    private Node root = new Node(true);
+    private int size;
+    private int height = 1; // levels, the leaves included
+    private boolean changed; // set by the last insert or delete
+
+    // A leaf holds count elements in keys; an inner node holds count
+    // children and count - 1 separators, where every element under
+    // children[i] is below keys[i] and every element under children[i + 1]
+    // is at least keys[i]. One extra slot lets a node overflow before it splits.
+    private static final class Node {
+        final boolean leaf;
+        final Object[] keys;
+        final Node[] children; // inner nodes only
+        final int[] sizes;     // elements under each child, inner nodes only
+        int count;
+        Node next;             // next leaf, leaves only
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+            this.keys = new Object[ORDER + 1];
+            this.children = leaf ? null : new Node[ORDER + 1];
+            this.sizes = leaf ? null : new int[ORDER + 1];
+        }
+    }
+
+    public boolean isPersistent() {
+        return false;
+    }
+
+    public OrderedIndex<T> snapshot() {
+        throw new IllegalStateException("Snapshots need a persistent tree");
+    }
+
+    @SuppressWarnings("unchecked")
+    private T key(Node node, int i) {
+        return (T) node.keys[i];
+    }
+
+    // Child of an inner node that may hold value
+    private int childIndex(Node node, T value) {
+        int lo = 0;
+        int hi = node.count - 1; // separators
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (value.compareTo(key(node, mid)) < 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    // Position of value in a leaf, or -(insertion point) - 1
+    private int leafIndex(Node leaf, T value) {
+        int lo = 0;
+        int hi = leaf.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = value.compareTo(key(leaf, mid));
+            if (cmp == 0) {
+                return mid;
+            } else if (cmp < 0) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private Node findLeaf(T value) {
+        Node node = root;
+        while (!node.leaf) {
+            node = node.children[childIndex(node, value)];
+        }
+        return node;
+    }
+
+    public T search(T value) {
+        Node leaf = findLeaf(value);
+        int i = leafIndex(leaf, value);
+        return i >= 0 ? key(leaf, i) : null;
+    }
+
+    public <K> T search(K key, KeyComparator<K, T> comparator) {
+        Node node = root;
+        while (!node.leaf) {
+            int lo = 0;
+            int hi = node.count - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(key, key(node, mid)) < 0) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            node = node.children[lo];
+        }
+
+        int lo = 0;
+        int hi = node.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparator.compare(key, key(node, mid));
+            if (cmp == 0) {
+                return key(node, mid);
+            } else if (cmp < 0) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return null;
+    }
+
+    // Insert only if no equal element exists; returns true if inserted
+    public boolean insertIfAbsent(T value) {
+        changed = false;
+        Node sibling = insert(root, value);
+        if (sibling != null) {
+            Node top = new Node(false);
+            top.children[0] = root;
+            top.children[1] = sibling;
+            top.sizes[0] = sizeOf(root);
+            top.sizes[1] = sizeOf(sibling);
+            top.keys[0] = firstKey(sibling);
+            top.count = 2;
+            root = top;
+            height++;
+        }
+        if (changed) {
+            size++;
+        }
+        return changed;
+    }
+
+    // Returns the new right sibling if node split, else null
+    private Node insert(Node node, T value) {
+        if (node.leaf) {
+            int i = leafIndex(node, value);
+            if (i >= 0) {
+                return null; // Duplicate not allowed
+            }
+            i = -i - 1;
+            System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+            node.keys[i] = value;
+            node.count++;
+            changed = true;
+            return node.count > ORDER ? split(node) : null;
+        }
+
+        int i = childIndex(node, value);
+        Node sibling = insert(node.children[i], value);
+        if (!changed) {
+            return null;
+        }
+        node.sizes[i]++;
+        if (sibling == null) {
+            return null;
+        }
+
+        node.sizes[i] = sizeOf(node.children[i]);
+        System.arraycopy(node.keys, i, node.keys, i + 1, node.count - 1 - i);
+        System.arraycopy(node.children, i + 1, node.children, i + 2, node.count - 1 - i);
+        System.arraycopy(node.sizes, i + 1, node.sizes, i + 2, node.count - 1 - i);
+        node.keys[i] = firstKey(sibling);
+        node.children[i + 1] = sibling;
+        node.sizes[i + 1] = sizeOf(sibling);
+        node.count++;
+        return node.count > ORDER ? split(node) : null;
+    }
+
+    // Move the upper half of an overflowing node into a new right sibling
+    private Node split(Node node) {
+        int half = node.count / 2;
+        Node right = new Node(node.leaf);
+
+        if (node.leaf) {
+            right.count = node.count - half;
+            System.arraycopy(node.keys, half, right.keys, 0, right.count);
+            clear(node.keys, half, node.count);
+            right.next = node.next;
+            node.next = right;
+        } else {
+            // keys[half - 1] moves up to the parent (see firstKey)
+            right.count = node.count - half;
+            System.arraycopy(node.children, half, right.children, 0, right.count);
+            System.arraycopy(node.sizes, half, right.sizes, 0, right.count);
+            System.arraycopy(node.keys, half - 1, right.keys, 0, right.count);
+            clear(node.keys, half - 1, node.count - 1);
+            clear(node.children, half, node.count);
+        }
+        node.count = half;
+        return right;
+    }
+
+    // Separator for a node just split off: the smallest element below it.
+    // A new inner sibling carries it in keys[0] until the parent takes it.
+    private Object firstKey(Node sibling) {
+        if (sibling.leaf) {
+            return sibling.keys[0];
+        }
+        Object first = sibling.keys[0];
+        System.arraycopy(sibling.keys, 1, sibling.keys, 0, sibling.count - 1);
+        sibling.keys[sibling.count - 1] = null;
+        return first;
+    }
+
+    private int sizeOf(Node node) {
+        if (node.leaf) {
+            return node.count;
+        }
+        int total = 0;
+        for (int i = 0; i < node.count; i++) {
+            total += node.sizes[i];
+        }
+        return total;
+    }
+
+    private static void clear(Object[] array, int from, int to) {
+        for (int i = from; i < to; i++) {
+            array[i] = null;
+        }
+    }
+
+    public void delete(T value) {
+        changed = false;
+        delete(root, value);
+        if (changed) {
+            size--;
+            if (!root.leaf && root.count == 1) {
+                root = root.children[0];
+                height--;
+            }
+        }
+    }
+
+    private void delete(Node node, T value) {
+        if (node.leaf) {
+            int i = leafIndex(node, value);
+            if (i >= 0) {
+                System.arraycopy(node.keys, i + 1, node.keys, i, node.count - 1 - i);
+                node.keys[--node.count] = null;
+                changed = true;
+            }
+            return;
+        }
+
+        int i = childIndex(node, value);
+        Node child = node.children[i];
+        delete(child, value);
+        if (!changed) {
+            return;
+        }
+        node.sizes[i]--;
+        if (child.count < MIN) {
+            refill(node, i);
+        }
+    }
+
+    // children[i] of parent is under half full: borrow from a sibling that
+    // can spare an entry, or else merge with one
+    private void refill(Node parent, int i) {
+        Node child = parent.children[i];
+        Node left = i > 0 ? parent.children[i - 1] : null;
+        Node right = i + 1 < parent.count ? parent.children[i + 1] : null;
+
+        if (left != null && left.count > MIN) {
+            borrowFromLeft(parent, i, left, child);
+        } else if (right != null && right.count > MIN) {
+            borrowFromRight(parent, i, child, right);
+        } else if (left != null) {
+            merge(parent, i - 1, left, child);
+        } else if (right != null) {
+            merge(parent, i, child, right);
+        }
+    }
+
+    private void borrowFromLeft(Node parent, int i, Node left, Node child) {
+        System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+        if (child.leaf) {
+            child.keys[0] = left.keys[left.count - 1];
+            left.keys[left.count - 1] = null;
+            parent.keys[i - 1] = child.keys[0];
+            moveSize(parent, i - 1, i, 1);
+        } else {
+            System.arraycopy(child.children, 0, child.children, 1, child.count);
+            System.arraycopy(child.sizes, 0, child.sizes, 1, child.count);
+            child.keys[0] = parent.keys[i - 1];
+            child.children[0] = left.children[left.count - 1];
+            child.sizes[0] = left.sizes[left.count - 1];
+            parent.keys[i - 1] = left.keys[left.count - 2];
+            left.keys[left.count - 2] = null;
+            left.children[left.count - 1] = null;
+            moveSize(parent, i - 1, i, child.sizes[0]);
+        }
+        left.count--;
+        child.count++;
+    }
+
+    private void borrowFromRight(Node parent, int i, Node child, Node right) {
+        if (child.leaf) {
+            child.keys[child.count] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 1);
+            right.keys[right.count - 1] = null;
+            parent.keys[i] = right.keys[0];
+            moveSize(parent, i + 1, i, 1);
+        } else {
+            int moved = right.sizes[0];
+            child.keys[child.count - 1] = parent.keys[i];
+            child.children[child.count] = right.children[0];
+            child.sizes[child.count] = moved;
+            parent.keys[i] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.count - 2);
+            System.arraycopy(right.children, 1, right.children, 0, right.count - 1);
+            System.arraycopy(right.sizes, 1, right.sizes, 0, right.count - 1);
+            right.keys[right.count - 2] = null;
+            right.children[right.count - 1] = null;
+            moveSize(parent, i + 1, i, moved);
+        }
+        right.count--;
+        child.count++;
+    }
+
+    private static void moveSize(Node parent, int from, int to, int amount) {
+        parent.sizes[from] -= amount;
+        parent.sizes[to] += amount;
+    }
+
+    // Append children[i + 1] of parent to children[i] and drop it
+    private void merge(Node parent, int i, Node left, Node right) {
+        if (left.leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            left.next = right.next;
+        } else {
+            left.keys[left.count - 1] = parent.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count - 1);
+            System.arraycopy(right.children, 0, left.children, left.count, right.count);
+            System.arraycopy(right.sizes, 0, left.sizes, left.count, right.count);
+        }
+        left.count += right.count;
+
+        parent.sizes[i] += parent.sizes[i + 1];
+        System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.count - 2 - i);
+        System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.count - 2 - i);
+        System.arraycopy(parent.sizes, i + 2, parent.sizes, i + 1, parent.count - 2 - i);
+        parent.count--;
+        parent.keys[parent.count - 1] = null;
+        parent.children[parent.count] = null;
+    }
+
+    public T computeIfPresent(T key, UnaryOperator<T> remapping) {
+        Node leaf = findLeaf(key);
+        int i = leafIndex(leaf, key);
+        if (i < 0) {
+            return null;
+        }
+        T updated = remapping.apply(key(leaf, i));
+        if (updated == null || updated.compareTo(key) != 0) {
+            throw new IllegalArgumentException("Remapping must keep the same key");
+        }
+        leaf.keys[i] = updated;
+        return updated;
+    }
+
+    // Replace the contents with full leaves built left to right in O(n).
+    // The list must be sorted in strictly ascending order.
+    public void buildFromSorted(List<T> sorted) {
+        size = sorted.size();
+        height = 1;
+
+        List<Node> level = new ArrayList<>();
+        Node previous = null;
+        for (int start = 0; start < sorted.size(); start += ORDER) {
+            Node leaf = new Node(true);
+            leaf.count = Math.min(ORDER, sorted.size() - start);
+            for (int i = 0; i < leaf.count; i++) {
+                leaf.keys[i] = sorted.get(start + i);
+            }
+            if (previous != null) {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level.add(leaf);
+        }
+        balanceLast(level);
+
+        while (level.size() > 1) {
+            List<Node> parents = new ArrayList<>();
+            for (int start = 0; start < level.size(); start += ORDER) {
+                Node parent = new Node(false);
+                parent.count = Math.min(ORDER, level.size() - start);
+                for (int i = 0; i < parent.count; i++) {
+                    Node child = level.get(start + i);
+                    parent.children[i] = child;
+                    parent.sizes[i] = sizeOf(child);
+                    if (i > 0) {
+                        parent.keys[i - 1] = smallest(child);
+                    }
+                }
+                parents.add(parent);
+            }
+            balanceLast(parents);
+            level = parents;
+            height++;
+        }
+        root = level.isEmpty() ? new Node(true) : level.get(0);
+    }
+
+    // Even out the last two nodes of a level so neither is under half full
+    private void balanceLast(List<Node> level) {
+        if (level.size() < 2) {
+            return;
+        }
+        Node last = level.get(level.size() - 1);
+        if (last.count >= MIN) {
+            return;
+        }
+        Node before = level.get(level.size() - 2);
+        int move = MIN - last.count;
+        if (last.leaf) {
+            System.arraycopy(last.keys, 0, last.keys, move, last.count);
+            System.arraycopy(before.keys, before.count - move, last.keys, 0, move);
+            clear(before.keys, before.count - move, before.count);
+        } else {
+            // The separator between the two moves down with the children
+            System.arraycopy(last.keys, 0, last.keys, move, last.count - 1);
+            last.keys[move - 1] = smallest(last.children[0]);
+            System.arraycopy(before.keys, before.count - move, last.keys, 0, move - 1);
+            System.arraycopy(last.children, 0, last.children, move, last.count);
+            System.arraycopy(before.children, before.count - move, last.children, 0, move);
+            System.arraycopy(last.sizes, 0, last.sizes, move, last.count);
+            System.arraycopy(before.sizes, before.count - move, last.sizes, 0, move);
+            clear(before.keys, before.count - move - 1, before.count - 1);
+            clear(before.children, before.count - move, before.count);
+        }
+        before.count -= move;
+        last.count += move;
+    }
+
+    private Object smallest(Node node) {
+        while (!node.leaf) {
+            node = node.children[0];
+        }
+        return node.keys[0];
+    }
+
+    public List<T> getInOrder() {
+        List<T> result = new ArrayList<>(size);
+        forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Node first = root;
+        while (!first.leaf) {
+            first = first.children[0];
+        }
+        return new LeafIterator(first, 0);
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public T select(int k) {
+        if (k < 0 || k >= size) {
+            return null;
+        }
+        Node node = root;
+        while (!node.leaf) {
+            int i = 0;
+            while (k >= node.sizes[i]) {
+                k -= node.sizes[i++];
+            }
+            node = node.children[i];
+        }
+        return key(node, k);
+    }
+
+    // Words starting with p (ignoring case): fold the prefix once, seek to
+    // the first key not below it, then read along the leaf chain
+    public List<T> prefix(String p, int limit) {
+        String prefix = Word.foldKey(p);
+        Node node = root;
+        while (!node.leaf) {
+            int lo = 0;
+            int hi = node.count - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (Word.KEY_ORDER.compare(prefix, (Word) node.keys[mid]) < 0) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            node = node.children[lo];
+        }
+
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Word.KEY_ORDER.compare(prefix, (Word) node.keys[mid]) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        LeafIterator walk = new LeafIterator(node, lo);
+
+        List<T> result = new ArrayList<>();
+        while (result.size() < limit && walk.hasNext()) {
+            T next = walk.next();
+            if (!((Word) next).getKey().startsWith(prefix)) {
+                break;
+            }
+            result.add(next);
+        }
+        return result;
+    }
+
+    public List<T> nextAfter(T after, int limit) {
+        Iterator<T> walk;
+        if (after == null) {
+            walk = iterator();
+        } else {
+            Node leaf = findLeaf(after);
+            int i = leafIndex(leaf, after);
+            walk = new LeafIterator(leaf, i >= 0 ? i + 1 : -i - 1);
+        }
+
+        List<T> result = new ArrayList<>(Math.min(limit, size));
+        while (result.size() < limit && walk.hasNext()) {
+            result.add(walk.next());
+        }
+        return result;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getTreeHeight() {
+        return size == 0 ? 0 : height;
+    }
+
+    // All leaves are at the same depth, so every search descends the same
+    // number of levels (each a binary search inside the node)
+    public double getAverageSearchDepth() {
+        return getTreeHeight();
+    }
+
+    // Nodes have no balance factor; the tree is balanced by construction
+    public int[] getBalanceHistogram() {
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Reads the leaves left to right from the given position
+    private class LeafIterator implements Iterator<T> {
+        private Node leaf;
+        private int index;
+
+        LeafIterator(Node leaf, int index) {
+            this.leaf = leaf;
+            this.index = index;
+            skipEmpty();
+        }
+
+        private void skipEmpty() {
+            while (leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public T next() {
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            T value = key(leaf, index++);
+            skipEmpty();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read-scaling benchmark for the lock-striped dictionary.
+// Usage: java ContentionBenchmark [words] [seconds per run] [write percent]
+// Each run starts 1, 2, 4 ... up to the core count threads doing random
+// lookups (and optionally a share of updates). It is compared with the same
+// workload behind one global lock, which is what callers had to do before.
+public class ContentionBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int words = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        List<Word> entries = new ArrayList<>(words);
+        Random random = new Random(42);
+        for (int i = 0; i < words; i++) {
+            String key = (char) ('a' + random.nextInt(26)) + Integer.toString(i, 36);
+            entries.add(new Word(key, "meaning " + i, "معنى" + i, "example", "Noun"));
+        }
+
+        DLinkedList striped = new DLinkedList(true);
+        DLinkedList plain = new DLinkedList(false);
+        striped.bulkLoad(entries);
+        plain.bulkLoad(entries);
+
+        System.out.println("words=" + words + " cores=" + cores + " writes=" + writePercent + "%");
+        System.out.println("threads  global-lock ops/s  striped ops/s");
+        // Powers of two below the core count, then every core
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        for (int threads : threadCounts) {
+            long global = run(plain, entries, threads, seconds, writePercent, true);
+            long perBucket = run(striped, entries, threads, seconds, writePercent, false);
+            System.out.printf("%7d  %18d  %13d%n", threads, global, perBucket);
+        }
+    }
+
+    private static long run(DLinkedList list, List<Word> entries, int threads, int seconds,
+                            int writePercent, boolean globalLock) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                long count = 0;
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 256; i++) {
+                        Word word = entries.get(random.nextInt(entries.size()));
+                        boolean write = random.nextInt(100) < writePercent;
+                        if (globalLock) {
+                            synchronized (list) {
+                                apply(list, word, write);
+                            }
+                        } else {
+                            apply(list, word, write);
+                        }
+                    }
+                    count += 256;
+                }
+                ops.add(count);
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+        return ops.sum() / seconds;
+    }
+
+    private static void apply(DLinkedList list, Word word, boolean write) {
+        if (write) {
+            list.updateWord(word.getWord(), word);
+        } else {
+            list.searchEnglish(word.getWord());
+        }
+    }
+}
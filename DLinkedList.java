@@ -1,19 +1,301 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+// In concurrent mode every DNode carries a read-write lock guarding its
+// tree. Operations that touch several buckets take the locks in letter
+// order (A..Z) to avoid deadlock. Word is immutable and updates swap in a
+// new Word, so readers may use a stored Word without locks.
+//
+// In persistent mode the trees copy paths instead of modifying nodes, so
+// readers never lock: snapshot() captures all 26 roots in O(1) and exports
+// or statistics run on that frozen version while edits continue. Writers
+// still take their bucket's write lock.
+//
+// The tree behind each bucket is chosen with an OrderedIndex.Backend;
+// persistent mode needs the AVL backend. With OFF_HEAP the buckets hand out
+// a new Word per call, so nothing here may keep every Word: the Arabic and
+// type indexes are not kept, Arabic lookups go to each bucket's own hash
+// table and type queries use each bucket's counts per type code. The
+// phrase index still holds the multi-word entries, and the fuzzy index,
+// once built, all of them.
+//
+// stream() walks the buckets lazily in sorted order and splits across them
+// for parallel use. In persistent mode it reads a snapshot; in concurrent
+// mode each bucket is read in short chunks, each under the bucket read lock.
 public class DLinkedList {
+    // Words read per lock acquisition by a concurrent-mode stream
+    private static final int STREAM_CHUNK = 256;
+
     private DNode head;
-    private int totalWords;
+    private final DNode[] buckets; // buckets[i] is the node for 'A' + i
+    private final boolean concurrent;
+    private final boolean persistent;
+    private final boolean offHeap;
+    // Held for writing by edits that span buckets, for reading by snapshot()
+    private final ReentrantReadWriteLock publishLock;
+    private LongAdder totalWords;
+    // Normalized Arabic meaning -> words with that meaning (secondary index).
+    // Lists are replaced, never modified, so readers need no lock. Null off-heap.
+    private Map<String, List<Word>> arabicIndex;
+    // Fuzzy English index, built on the first suggest() so loads don't pay
+    // for it; indexWord/unindexWord keep it in sync from then on
+    private volatile BKTree fuzzyIndex;
+    // Type -> words of that type, for O(1) counts and random picks. Null off-heap.
+    private final TypeIndex typeIndex;
+    // Keys with more than one word, matched inside running text
+    private final PhraseMatcher phraseIndex;
 
     public DLinkedList() {
+        this(false, false);
+    }
+
+    public DLinkedList(boolean concurrent) {
+        this(concurrent, false);
+    }
+
+    public DLinkedList(boolean concurrent, boolean persistent) {
+        this(concurrent, persistent, OrderedIndex.Backend.AVL);
+    }
+
+    public DLinkedList(boolean concurrent, boolean persistent, OrderedIndex.Backend backend) {
+        this.concurrent = concurrent || persistent;
+        this.persistent = persistent;
+        this.offHeap = backend == OrderedIndex.Backend.OFF_HEAP;
+        publishLock = new ReentrantReadWriteLock();
         head = new DNode(' ');
         head.setNext(head);
         head.setPrev(head);
-        totalWords = 0;
+        totalWords = new LongAdder();
+        if (offHeap) {
+            arabicIndex = null;
+            typeIndex = null;
+        } else {
+            arabicIndex = this.concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+            typeIndex = new TypeIndex();
+        }
+        phraseIndex = new PhraseMatcher();
 
+        buckets = new DNode[26];
         for (char c = 'A'; c <= 'Z'; c++) {
-            DNode newNode = new DNode(c);
+            DNode newNode = new DNode(c, concurrent, persistent, backend);
             addNode(newNode);
+            buckets[c - 'A'] = newNode;
+        }
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    // Consistent read-only view of all 26 buckets. O(1) in persistent mode;
+    // otherwise the trees are copied under the bucket read locks.
+    public Snapshot snapshot() {
+        List<OrderedIndex<Word>> trees = new ArrayList<>(26);
+
+        if (persistent) {
+            publishLock.readLock().lock();
+            try {
+                for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+                    trees.add(current.getTree().snapshot());
+                }
+            } finally {
+                publishLock.readLock().unlock();
+            }
+            return new Snapshot(trees);
+        }
+
+        lockAllRead();
+        try {
+            for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+                AVLTree<Word> copy = new AVLTree<>(true);
+                copy.buildFromSorted(current.getTree().getInOrder());
+                trees.add(copy);
+            }
+        } finally {
+            unlockAllRead();
+        }
+        return new Snapshot(trees);
+    }
+
+    // All words in sorted order, read lazily bucket by bucket
+    public Stream<Word> stream() {
+        if (persistent) {
+            return snapshot().stream();
+        }
+
+        List<DNode> nodes = new ArrayList<>(26);
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            nodes.add(current);
+        }
+
+        IntFunction<Spliterator<Word>> open;
+        if (concurrent) {
+            open = i -> Spliterators.spliteratorUnknownSize(new ChunkIterator(nodes.get(i)),
+                    Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        } else {
+            open = i -> nodes.get(i).getTree().spliterator();
+        }
+        return StreamSupport.stream(new BucketSpliterator(open,
+                i -> nodes.get(i).getTree().getSize(), 0, nodes.size()), false);
+    }
+
+    // Reads a bucket STREAM_CHUNK words at a time, each chunk under the read
+    // lock and continuing after the last word seen. No lock is held between
+    // chunks, so an abandoned stream never blocks writers; edits made during
+    // the walk are seen if they land after the current position.
+    private static class ChunkIterator implements Iterator<Word> {
+        private final DNode node;
+        private List<Word> chunk = Collections.emptyList();
+        private int index;
+        private Word last;
+        private boolean done;
+
+        ChunkIterator(DNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < chunk.size()) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            node.lockRead();
+            try {
+                chunk = node.getTree().nextAfter(last, STREAM_CHUNK);
+            } finally {
+                node.unlockRead();
+            }
+            index = 0;
+            done = chunk.size() < STREAM_CHUNK;
+            if (!chunk.isEmpty()) {
+                last = chunk.get(chunk.size() - 1);
+            }
+            return index < chunk.size();
+        }
+
+        @Override
+        public Word next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(index++);
+        }
+    }
+
+    // Words of every bucket, opened one bucket at a time. Before a bucket
+    // is opened the range splits in half by bucket; a single open bucket
+    // splits through its own spliterator.
+    private static class BucketSpliterator implements Spliterator<Word> {
+        private final IntFunction<Spliterator<Word>> open;
+        private final IntToLongFunction sizeOf;
+        private int from;
+        private final int to;
+        private Spliterator<Word> current;
+
+        BucketSpliterator(IntFunction<Spliterator<Word>> open, IntToLongFunction sizeOf, int from, int to) {
+            this.open = open;
+            this.sizeOf = sizeOf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Word> action) {
+            while (true) {
+                if (current == null) {
+                    if (from >= to) {
+                        return false;
+                    }
+                    current = open.apply(from++);
+                }
+                if (current.tryAdvance(action)) {
+                    return true;
+                }
+                current = null;
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Word> action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+                current = null;
+            }
+            while (from < to) {
+                open.apply(from++).forEachRemaining(action);
+            }
+        }
+
+        @Override
+        public Spliterator<Word> trySplit() {
+            if (current == null && to - from > 1) {
+                int mid = (from + to) >>> 1;
+                BucketSpliterator prefix = new BucketSpliterator(open, sizeOf, from, mid);
+                from = mid;
+                return prefix;
+            }
+            if (current == null && to - from == 1) {
+                current = open.apply(from++);
+            }
+            if (current == null) {
+                return null;
+            }
+            if (from == to) {
+                return current.trySplit();
+            }
+
+            // Hand off the open bucket, keep the unopened ones
+            BucketSpliterator prefix = new BucketSpliterator(open, sizeOf, from, from);
+            prefix.current = current;
+            current = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = current != null ? current.estimateSize() : 0;
+            for (int i = from; i < to; i++) {
+                size += sizeOf.applyAsLong(i);
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Word> getComparator() {
+            return null; // natural order
         }
     }
 
@@ -25,19 +307,24 @@ public class DLinkedList {
         head.setPrev(newNode);
     }
 
+    // O(1): the letter nodes never change once the list is built
     public DNode getNodeByLetter(char letter) {
-        DNode current = head.getNext();
-        while (current != head) {
-            if (current.getLetter() == Character.toUpperCase(letter)) {
-                return current;
-            }
-            current = current.getNext();
+        int index = Character.toUpperCase(letter) - 'A';
+        if (index < 0 || index >= buckets.length) {
+            return null;
         }
-        return null;
+        return buckets[index];
     }
 
-    // Add word - FIXED
+    // Add word - single descent, duplicates rejected by the tree
     public boolean addWord(Word word) {
+        return addWord(word, null);
+    }
+
+    // The edit methods taking a journal log a successful edit while the
+    // bucket write lock is still held, so edits to one key reach the
+    // journal in the order they were applied. journal may be null.
+    public boolean addWord(Word word, Journal journal) {
         if (word == null || word.getWord().isEmpty()) {
             return false;
         }
@@ -47,64 +334,403 @@ public class DLinkedList {
             return false;
         }
 
-        // Check if word already exists - FIXED
-        Word existing = searchEnglish(word.getWord());
-        if (existing != null) {
+        DNode node = getNodeByLetter(firstLetter);
+        if (node == null) {
             return false;
         }
 
-        DNode node = getNodeByLetter(firstLetter);
-        if (node != null) {
-            node.getTree().insert(word);
-            totalWords++;
+        node.lockWrite();
+        try {
+            if (!addLocked(node, word)) {
+                return false;
+            }
+            if (journal != null) {
+                journal.logAdd(word);
+            }
             return true;
+        } finally {
+            node.unlockWrite();
         }
+    }
 
+    private boolean addLocked(DNode node, Word word) {
+        if (node.getTree().insertIfAbsent(word)) {
+            indexWord(word);
+            node.addBytes(recordBytes(word));
+            totalWords.increment();
+            return true;
+        }
         return false;
     }
 
-    // Search by English
-    public Word searchEnglish(String englishWord) {
-        if (englishWord == null || englishWord.isEmpty()) {
+    // Bulk load into an empty list: words are grouped by letter and each
+    // tree is built balanced in one pass. Returns the number of words loaded.
+    public int bulkLoad(List<Word> words) {
+        List<List<Word>> groups = new ArrayList<>(26);
+        for (int i = 0; i < 26; i++) {
+            groups.add(new ArrayList<>());
+        }
+
+        for (Word word : words) {
+            int letter = letterIndex(word);
+            if (letter >= 0) {
+                groups.get(letter).add(word);
+            }
+        }
+
+        lockAllWrite();
+        try {
+            if (totalWords.sum() != 0) {
+                throw new IllegalStateException("Bulk load requires an empty dictionary");
+            }
+
+            int count = 0;
+            DNode current = head.getNext();
+            while (current != head) {
+                List<Word> group = groups.get(current.getLetter() - 'A');
+                count += loadBucket(current, sortedUnique(group));
+                current = current.getNext();
+            }
+            return count;
+        } finally {
+            unlockAllWrite();
+        }
+    }
+
+    // Parallel bulk load into an empty list. groups.get(i) holds the words
+    // for letter 'A' + i in any order; the 26 trees are sorted and built
+    // concurrently on the pool, then indexed and counted on this thread.
+    // Returns the number of words loaded per letter.
+    public int[] bulkLoadParallel(List<List<Word>> groups, ForkJoinPool pool) {
+        lockAllWrite();
+        try {
+            if (totalWords.sum() != 0) {
+                throw new IllegalStateException("Bulk load requires an empty dictionary");
+            }
+            return buildAll(groups, pool);
+        } finally {
+            unlockAllWrite();
+        }
+    }
+
+    private int[] buildAll(List<List<Word>> groups, ForkJoinPool pool) {
+        List<Future<List<Word>>> built = new ArrayList<>(26);
+        for (int i = 0; i < 26; i++) {
+            DNode node = getNodeByLetter((char) ('A' + i));
+            List<Word> group = groups.get(i);
+            built.add(pool.submit(() -> {
+                List<Word> sorted = sortedUnique(group);
+                node.getTree().buildFromSorted(sorted);
+                return sorted;
+            }));
+        }
+
+        int[] counts = new int[26];
+        for (int i = 0; i < 26; i++) {
+            List<Word> sorted;
+            try {
+                sorted = built.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bulk load interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Bulk load failed", e.getCause());
+            }
+
+            DNode node = getNodeByLetter((char) ('A' + i));
+            for (Word word : sorted) {
+                indexWord(word);
+                node.addBytes(recordBytes(word));
+            }
+            counts[i] = sorted.size();
+            totalWords.add(sorted.size());
+        }
+        return counts;
+    }
+
+    // Sort (unless already sorted) and drop duplicates, keeping the first
+    // occurrence like addWord does. Sorting is stable.
+    static List<Word> sortedUnique(List<Word> words) {
+        boolean sorted = true;
+        for (int i = 1; i < words.size() && sorted; i++) {
+            sorted = words.get(i - 1).compareTo(words.get(i)) < 0;
+        }
+        if (sorted) {
+            return words;
+        }
+
+        List<Word> copy = new ArrayList<>(words);
+        copy.sort(null);
+
+        List<Word> unique = new ArrayList<>(copy.size());
+        for (Word word : copy) {
+            if (unique.isEmpty() || unique.get(unique.size() - 1).compareTo(word) != 0) {
+                unique.add(word);
+            }
+        }
+        return unique;
+    }
+
+    private int loadBucket(DNode node, List<Word> sorted) {
+        node.getTree().buildFromSorted(sorted);
+        for (Word word : sorted) {
+            indexWord(word);
+            node.addBytes(recordBytes(word));
+        }
+        totalWords.add(sorted.size());
+        return sorted.size();
+    }
+
+    // UTF-8 size of the five fields of a word, counted without encoding
+    static long recordBytes(Word word) {
+        return utf8Length(word.getWord()) + utf8Length(word.getEnglishMeaning())
+                + utf8Length(word.getArabicMeaning()) + utf8Length(word.getExample())
+                + utf8Length(word.getType());
+    }
+
+    private static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    // Bucket index 0..25 for a word, or -1 if it cannot be stored
+    static int letterIndex(Word word) {
+        if (word == null || word.getWord() == null || word.getWord().isEmpty()) {
+            return -1;
+        }
+
+        char firstLetter = Character.toUpperCase(word.getWord().charAt(0));
+        if (firstLetter < 'A' || firstLetter > 'Z') {
+            return -1;
+        }
+        return firstLetter - 'A';
+    }
+
+    // Search by English; the key may be any character sequence
+    public Word searchEnglish(CharSequence englishWord) {
+        if (englishWord == null || englishWord.length() == 0) {
             return null;
         }
 
-        char firstLetter = Character.toUpperCase(englishWord.charAt(0));
-        DNode node = getNodeByLetter(firstLetter);
+        DNode node = getNodeByLetter(englishWord.charAt(0));
         if (node != null) {
-
-            Word tempWord = new Word(englishWord, "", "", "", "");
-            Word found = node.getTree().search(tempWord);
-            return found;
+            node.lockRead();
+            try {
+                if (englishWord instanceof String) {
+                    // Fold once, then compare against the stored keys directly
+                    return node.getTree().search(Word.foldKey(englishWord), Word.KEY_ORDER);
+                }
+                return node.getTree().search(englishWord, Word.ENGLISH_KEY);
+            } finally {
+                node.unlockRead();
+            }
         }
         return null;
     }
 
-    // Search by Arabic
+    // Multi-word entries occurring in text, sorted by start then longest first
+    public List<PhraseMatcher.Match> findPhrases(CharSequence text) {
+        if (phraseIndex.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return phraseIndex.find(text);
+    }
+
+    // Up to limit words starting with prefix, in sorted order
+    public List<Word> complete(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        DNode node = getNodeByLetter(prefix.charAt(0));
+        if (node == null) {
+            return new ArrayList<>();
+        }
+
+        node.lockRead();
+        try {
+            return node.getTree().prefix(prefix, limit);
+        } finally {
+            node.unlockRead();
+        }
+    }
+
+    // Up to limit words within maxDistance edits of word, closest first
+    public List<Word> suggest(String word, int maxDistance, int limit) {
+        if (word == null || word.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        BKTree fuzzy = fuzzyIndex;
+        if (fuzzy == null) {
+            fuzzy = buildFuzzyIndex();
+        }
+        // Widen the radius one edit at a time: small radii visit far fewer
+        // nodes and usually already fill the limit
+        List<Word> result = new ArrayList<>();
+        for (int distance = 1; distance <= maxDistance && result.size() < limit; distance++) {
+            result = fuzzy.search(word, distance, limit);
+        }
+        return result;
+    }
+
+    // Writers are held off while the index is filled so none is missed
+    private BKTree buildFuzzyIndex() {
+        lockAllWrite();
+        try {
+            if (fuzzyIndex == null) {
+                List<Word> words = new ArrayList<>(getTotalWords());
+                for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+                    words.addAll(current.getTree().getInOrder());
+                }
+                // Sorted input makes a lopsided BK-tree; random order keeps it shallow
+                Collections.shuffle(words, new Random(words.size()));
+
+                BKTree fuzzy = new BKTree();
+                for (Word word : words) {
+                    fuzzy.add(word);
+                }
+                fuzzyIndex = fuzzy;
+            }
+            return fuzzyIndex;
+        } finally {
+            unlockAllWrite();
+        }
+    }
+
+    // Search by Arabic, ignoring tashkeel, tatweel and letter variants
     public Word searchArabic(String arabicMeaning) {
-        DNode current = head.getNext();
-        while (current != head) {
-            Word result = current.getTree().searchByArabic(arabicMeaning);
-            if (result != null) {
-                return result;
+        return searchArabicKey(ArabicNormalizer.normalize(arabicMeaning));
+    }
+
+    // Search by an already normalized Arabic key
+    public Word searchArabicKey(String arabicKey) {
+        if (offHeap) {
+            List<Word> words = searchArabicOffHeap(arabicKey, 1);
+            return words.isEmpty() ? null : words.get(0);
+        }
+        List<Word> words = arabicIndex.get(arabicKey);
+        if (words == null) {
+            return null;
+        }
+        return words.get(0);
+    }
+
+    // All words sharing an Arabic meaning
+    public List<Word> searchArabicAll(String arabicMeaning) {
+        if (offHeap) {
+            return searchArabicOffHeap(ArabicNormalizer.normalize(arabicMeaning), Integer.MAX_VALUE);
+        }
+        List<Word> words = arabicIndex.get(ArabicNormalizer.normalize(arabicMeaning));
+        if (words == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(words);
+    }
+
+    // Asks every bucket's hash table, in letter order
+    private List<Word> searchArabicOffHeap(String arabicKey, int limit) {
+        List<Word> result = new ArrayList<>();
+        for (DNode current = head.getNext(); current != head && result.size() < limit; current = current.getNext()) {
+            current.lockRead();
+            try {
+                OffHeapIndex bucket = (OffHeapIndex) current.getTree();
+                result.addAll(bucket.searchArabicKey(arabicKey, limit - result.size()));
+            } finally {
+                current.unlockRead();
             }
-            current = current.getNext();
         }
-        return null;
+        return result;
     }
 
     // Update word
     public boolean updateWord(String englishWord, Word newWord) {
-        // First delete the old word
-        if (deleteWord(englishWord)) {
-            // Then add the new word
-            return addWord(newWord);
+        return updateWord(englishWord, newWord, null);
+    }
+
+    public boolean updateWord(String englishWord, Word newWord, Journal journal) {
+        if (englishWord == null || englishWord.isEmpty() || newWord == null) {
+            return false;
+        }
+
+        String key = Word.foldKey(englishWord);
+        DNode oldNode = getNodeByLetter(englishWord.charAt(0));
+        if (oldNode == null) {
+            return false;
+        }
+
+        if (key.equals(newWord.getKey())) {
+            // Same key: swap the stored word in place, no restructuring.
+            // newWord itself serves as the lookup key.
+            oldNode.lockWrite();
+            try {
+                Word updated = oldNode.getTree().computeIfPresent(newWord, existing -> {
+                    unindexWord(existing);
+                    indexWord(newWord);
+                    oldNode.addBytes(recordBytes(newWord) - recordBytes(existing));
+                    return newWord;
+                });
+                if (updated == null) {
+                    return false;
+                }
+                if (journal != null) {
+                    journal.logUpdate(englishWord, newWord);
+                }
+                return true;
+            } finally {
+                oldNode.unlockWrite();
+            }
+        }
+
+        int newLetter = letterIndex(newWord);
+        if (newLetter < 0) {
+            return false;
+        }
+        DNode newNode = getNodeByLetter((char) ('A' + newLetter));
+
+        // Key changed: lock both buckets in letter order
+        DNode first = oldNode.getLetter() <= newNode.getLetter() ? oldNode : newNode;
+        DNode second = first == oldNode ? newNode : oldNode;
+        first.lockWrite();
+        if (second != first) second.lockWrite();
+        publishLock.writeLock().lock();
+        try {
+            // Add the new word first so a failed add loses nothing
+            Word existing = oldNode.getTree().search(key, Word.KEY_ORDER);
+            if (existing == null || !addLocked(newNode, newWord)) {
+                return false;
+            }
+            deleteLocked(oldNode, existing);
+            if (journal != null) {
+                journal.logUpdate(englishWord, newWord);
+            }
+            return true;
+        } finally {
+            publishLock.writeLock().unlock();
+            if (second != first) second.unlockWrite();
+            first.unlockWrite();
         }
-        return false;
     }
 
     // Delete word
     public boolean deleteWord(String englishWord) {
+        return deleteWord(englishWord, null);
+    }
+
+    public boolean deleteWord(String englishWord, Journal journal) {
         if (englishWord == null || englishWord.isEmpty()) {
             return false;
         }
@@ -113,86 +739,434 @@ public class DLinkedList {
         DNode node = getNodeByLetter(firstLetter);
         if (node != null) {
 
-            Word tempWord = new Word(englishWord, "", "", "", "");
-            Word wordToDelete = node.getTree().search(tempWord);
-
-            if (wordToDelete != null) {
-                node.getTree().delete(wordToDelete);
-                totalWords--;
-                return true;
+            String key = Word.foldKey(englishWord);
+            node.lockWrite();
+            try {
+                Word wordToDelete = node.getTree().search(key, Word.KEY_ORDER);
+                if (wordToDelete != null) {
+                    deleteLocked(node, wordToDelete);
+                    if (journal != null) {
+                        journal.logDelete(englishWord);
+                    }
+                    return true;
+                }
+            } finally {
+                node.unlockWrite();
             }
         }
         return false;
     }
 
+    private void deleteLocked(DNode node, Word word) {
+        node.getTree().delete(word);
+        unindexWord(word);
+        node.addBytes(-recordBytes(word));
+        totalWords.decrement();
+    }
+
+    // Lock every bucket in letter order; unlock in reverse
+    private void lockAllRead() {
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            current.lockRead();
+        }
+    }
+
+    private void unlockAllRead() {
+        for (DNode current = head.getPrev(); current != head; current = current.getPrev()) {
+            current.unlockRead();
+        }
+    }
+
+    private void lockAllWrite() {
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            current.lockWrite();
+        }
+        publishLock.writeLock().lock();
+    }
+
+    private void unlockAllWrite() {
+        publishLock.writeLock().unlock();
+        for (DNode current = head.getPrev(); current != head; current = current.getPrev()) {
+            current.unlockWrite();
+        }
+    }
+
+    // Keep secondary indexes in sync with the trees
+    private void indexWord(Word word) {
+        if (!offHeap) {
+            arabicIndex.compute(word.getArabicKey(), (meaning, words) -> {
+                List<Word> updated = words == null ? new ArrayList<>(1) : new ArrayList<>(words);
+                updated.add(word);
+                return updated;
+            });
+            typeIndex.add(word);
+        }
+        if (PhraseMatcher.isPhrase(word.getWord())) {
+            phraseIndex.add(word);
+        }
+
+        BKTree fuzzy = fuzzyIndex;
+        if (fuzzy != null) {
+            fuzzy.add(word);
+        }
+    }
+
+    private void unindexWord(Word word) {
+        if (!offHeap) {
+            arabicIndex.computeIfPresent(word.getArabicKey(), (meaning, words) -> {
+                List<Word> updated = new ArrayList<>(words);
+                updated.remove(word);
+                return updated.isEmpty() ? null : updated;
+            });
+            typeIndex.remove(word);
+        }
+        if (PhraseMatcher.isPhrase(word.getWord())) {
+            phraseIndex.remove(word);
+        }
+
+        BKTree fuzzy = fuzzyIndex;
+        if (fuzzy != null) {
+            fuzzy.remove(word);
+        }
+    }
+
     public List<Word> getAllWords() {
-        List<Word> allWords = new ArrayList<>();
-        DNode current = head.getNext();
+        if (persistent) {
+            return snapshot().getAllWords();
+        }
 
-        while (current != head) {
-            allWords.addAll(current.getTree().getInOrder());
-            current = current.getNext();
+        lockAllRead();
+        try {
+            List<Word> allWords = new ArrayList<>(getTotalWords());
+            for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+                current.getTree().forEach(allWords::add);
+            }
+            return allWords;
+        } finally {
+            unlockAllRead();
         }
-        return allWords;
     }
 
     public List<Word> getWordsByLetter(char letter) {
         DNode node = getNodeByLetter(letter);
         if (node != null) {
-            return node.getTree().getInOrder();
+            node.lockRead();
+            try {
+                return node.getTree().getInOrder();
+            } finally {
+                node.unlockRead();
+            }
         }
         return new ArrayList<>();
     }
 
+    // Get the word at a global position, counting across letters A..Z
+    public Word wordAt(int index) {
+        if (persistent) {
+            return snapshot().wordAt(index);
+        }
+
+        lockAllRead();
+        try {
+            if (index < 0) {
+                return null;
+            }
+
+            DNode current = head.getNext();
+            while (current != head) {
+                int size = current.getTree().getSize();
+                if (index < size) {
+                    return current.getTree().select(index);
+                }
+                index -= size;
+                current = current.getNext();
+            }
+            return null;
+        } finally {
+            unlockAllRead();
+        }
+    }
+
     public int getTotalWords() {
-        return totalWords;
+        return totalWords.intValue();
     }
 
     public List<LetterCount> getLetterCounts() {
-        List<LetterCount> counts = new ArrayList<>();
-        DNode current = head.getNext();
+        if (persistent) {
+            return snapshot().getLetterCounts();
+        }
+
+        lockAllRead();
+        try {
+            List<LetterCount> counts = new ArrayList<>();
+            DNode current = head.getNext();
 
-        while (current != head) {
-            counts.add(new LetterCount(current.getLetter(),
-                    current.getTree().getSize()));
-            current = current.getNext();
+            while (current != head) {
+                counts.add(new LetterCount(current.getLetter(),
+                        current.getTree().getSize()));
+                current = current.getNext();
+            }
+            return counts;
+        } finally {
+            unlockAllRead();
         }
-        return counts;
     }
 
+    // O(1) from the type index; off-heap, from each bucket's counts per type code
     public List<TypeCount> getTypeCounts() {
-        List<TypeCount> counts = new ArrayList<>();
-        List<Word> allWords = getAllWords();
-
-        for (Word word : allWords) {
-            String type = word.getType();
-            boolean found = false;
-
-            for (TypeCount tc : counts) {
-                if (tc.getType().equals(type)) {
-                    tc.count++;
-                    found = true;
-                    break;
+        if (!offHeap) {
+            return typeIndex.counts();
+        }
+
+        int[] counts = new int[0];
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            int[] bucket;
+            current.lockRead();
+            try {
+                bucket = ((OffHeapIndex) current.getTree()).getTypeCounts();
+            } finally {
+                current.unlockRead();
+            }
+            if (bucket.length > counts.length) {
+                counts = Arrays.copyOf(counts, bucket.length);
+            }
+            for (int code = 0; code < bucket.length; code++) {
+                counts[code] += bucket[code];
+            }
+        }
+        return TypeIndex.count(counts);
+    }
+
+    // Number of words of a type (ignoring case), O(1); O(26) off-heap
+    public int getTypeCount(String type) {
+        if (!offHeap) {
+            return typeIndex.count(type);
+        }
+
+        int count = 0;
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            count += countType(current, type);
+        }
+        return count;
+    }
+
+    private static int countType(DNode node, String type) {
+        node.lockRead();
+        try {
+            return ((OffHeapIndex) node.getTree()).countType(type);
+        } finally {
+            node.unlockRead();
+        }
+    }
+
+    // Uniformly random word of a type (ignoring case), or null, O(1).
+    // Off-heap, random words are drawn until one has the type, which is
+    // quick for common types; rare ones pick a bucket by its count and scan
+    // its type codes, locking one bucket at a time.
+    public Word getRandomWordByType(String type, Random random) {
+        if (!offHeap) {
+            return typeIndex.random(type, random);
+        }
+
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int total = getTotalWords();
+            if (total == 0) {
+                return null;
+            }
+            Word word = wordAt(random.nextInt(total));
+            if (word != null && word.getType().equalsIgnoreCase(type)) {
+                return word;
+            }
+        }
+
+        while (true) {
+            int[] counts = new int[26];
+            int total = 0;
+            for (int i = 0; i < 26; i++) {
+                counts[i] = countType(buckets[i], type);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return null;
+            }
+
+            int k = random.nextInt(total);
+            int i = 0;
+            while (k >= counts[i]) {
+                k -= counts[i++];
+            }
+            buckets[i].lockRead();
+            try {
+                Word word = ((OffHeapIndex) buckets[i].getTree()).typeAt(type, k);
+                if (word != null) {
+                    return word;
                 }
+                // the bucket shrank since it was counted; count again
+            } finally {
+                buckets[i].unlockRead();
             }
+        }
+    }
 
-            if (!found) {
-                counts.add(new TypeCount(type, 1));
+    // Off-heap bytes of all word stores: {reserved, live, garbage}; null
+    // unless the buckets are OFF_HEAP
+    public long[] getOffHeapBytes() {
+        if (!offHeap) {
+            return null;
+        }
+        long[] totals = new long[3];
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            long[] bucket;
+            current.lockRead();
+            try {
+                bucket = ((OffHeapIndex) current.getTree()).getOffHeapBytes();
+            } finally {
+                current.unlockRead();
+            }
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += bucket[i];
             }
         }
-        return counts;
+        return totals;
     }
 
     public List<LetterHeight> getTreeHeights() {
-        List<LetterHeight> heights = new ArrayList<>();
-        DNode current = head.getNext();
+        if (persistent) {
+            return snapshot().getTreeHeights();
+        }
+
+        lockAllRead();
+        try {
+            List<LetterHeight> heights = new ArrayList<>();
+            DNode current = head.getNext();
+
+            while (current != head) {
+                heights.add(new LetterHeight(current.getLetter(),
+                        current.getTree().getTreeHeight()));
+                current = current.getNext();
+            }
+            return heights;
+        } finally {
+            unlockAllRead();
+        }
+    }
+
+    // Per-bucket statistics, O(26) on the AVL backend, which caches them in
+    // each tree root. Each bucket is read under its own read lock only.
+    public List<BucketStats> getBucketStats() {
+        List<BucketStats> stats = new ArrayList<>(26);
+        for (DNode current = head.getNext(); current != head; current = current.getNext()) {
+            current.lockRead();
+            try {
+                // A persistent tree is pinned so all figures come from one version
+                OrderedIndex<Word> tree = persistent ? current.getTree().snapshot() : current.getTree();
+                stats.add(new BucketStats(current.getLetter(), tree.getSize(), tree.getTreeHeight(),
+                        tree.getAverageSearchDepth(), tree.getBalanceHistogram(), current.getBytes()));
+            } finally {
+                current.unlockRead();
+            }
+        }
+        return stats;
+    }
+
+    // Frozen view of the 26 letter trees, safe to read without locks
+    public static class Snapshot {
+        private final List<OrderedIndex<Word>> trees;
+
+        private Snapshot(List<OrderedIndex<Word>> trees) {
+            this.trees = trees;
+        }
+
+        public OrderedIndex<Word> getTree(char letter) {
+            int index = Character.toUpperCase(letter) - 'A';
+            if (index < 0 || index >= trees.size()) {
+                return null;
+            }
+            return trees.get(index);
+        }
+
+        public List<Word> getWordsByLetter(char letter) {
+            OrderedIndex<Word> tree = getTree(letter);
+            return tree == null ? new ArrayList<>() : tree.getInOrder();
+        }
+
+        public List<Word> getAllWords() {
+            List<Word> allWords = new ArrayList<>(getTotalWords());
+            for (OrderedIndex<Word> tree : trees) {
+                tree.forEach(allWords::add);
+            }
+            return allWords;
+        }
+
+        // All words in sorted order; parallel streams split by bucket
+        public Stream<Word> stream() {
+            return StreamSupport.stream(new BucketSpliterator(i -> trees.get(i).spliterator(),
+                    i -> trees.get(i).getSize(), 0, trees.size()), false);
+        }
+
+        public Word wordAt(int index) {
+            if (index < 0) {
+                return null;
+            }
+            for (OrderedIndex<Word> tree : trees) {
+                if (index < tree.getSize()) {
+                    return tree.select(index);
+                }
+                index -= tree.getSize();
+            }
+            return null;
+        }
 
-        while (current != head) {
-            heights.add(new LetterHeight(current.getLetter(),
-                    current.getTree().getTreeHeight()));
-            current = current.getNext();
+        public int getTotalWords() {
+            int total = 0;
+            for (OrderedIndex<Word> tree : trees) {
+                total += tree.getSize();
+            }
+            return total;
+        }
+
+        public List<LetterCount> getLetterCounts() {
+            List<LetterCount> counts = new ArrayList<>();
+            for (int i = 0; i < trees.size(); i++) {
+                counts.add(new LetterCount((char) ('A' + i), trees.get(i).getSize()));
+            }
+            return counts;
+        }
+
+        public List<LetterHeight> getTreeHeights() {
+            List<LetterHeight> heights = new ArrayList<>();
+            for (int i = 0; i < trees.size(); i++) {
+                heights.add(new LetterHeight((char) ('A' + i), trees.get(i).getTreeHeight()));
+            }
+            return heights;
+        }
+    }
+
+    public static class BucketStats {
+        public char letter;
+        public int count;
+        public int height;             // maximum search depth
+        public double averageDepth;    // average depth of a successful search
+        public int[] balanceHistogram; // nodes with balance -1, 0, +1; null for a B+ tree,
+                                       // whose depths count levels rather than nodes
+        public long bytes;             // UTF-8 size of the stored fields
+
+        public BucketStats(char letter, int count, int height, double averageDepth,
+                           int[] balanceHistogram, long bytes) {
+            this.letter = letter;
+            this.count = count;
+            this.height = height;
+            this.averageDepth = averageDepth;
+            this.balanceHistogram = balanceHistogram;
+            this.bytes = bytes;
         }
-        return heights;
+
+        public char getLetter() { return letter; }
+        public int getCount() { return count; }
+        public int getHeight() { return height; }
+        public double getAverageDepth() { return averageDepth; }
+        public int[] getBalanceHistogram() { return balanceHistogram; }
+        public long getBytes() { return bytes; }
     }
 
     public static class LetterCount {
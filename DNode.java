@@ -1,21 +1,45 @@
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 public class DNode {
     private char letter;
-    private AVLTree<Word> tree;
+    private OrderedIndex<Word> tree;
     private DNode next;
     private DNode prev;
+    private ReentrantReadWriteLock lock; // null unless the list is concurrent
+    private boolean lockFreeReads;       // persistent trees: only writers lock
+    private volatile long bytes;         // UTF-8 size of the stored fields, changed under the write lock
 
     public DNode(char letter) {
+        this(letter, false, false);
+    }
+
+    public DNode(char letter, boolean concurrent, boolean persistent) {
+        this(letter, concurrent, persistent, OrderedIndex.Backend.AVL);
+    }
+
+    public DNode(char letter, boolean concurrent, boolean persistent, OrderedIndex.Backend backend) {
         this.letter = Character.toUpperCase(letter);
-        this.tree = new AVLTree<>();
+        this.tree = OrderedIndex.create(backend, persistent);
         this.next = null;
         this.prev = null;
+        this.lock = concurrent || persistent ? new ReentrantReadWriteLock() : null;
+        this.lockFreeReads = persistent;
     }
 
     public char getLetter() { return letter; }
-    public AVLTree<Word> getTree() { return tree; }
+    public OrderedIndex<Word> getTree() { return tree; }
     public DNode getNext() { return next; }
     public DNode getPrev() { return prev; }
 
     public void setNext(DNode next) { this.next = next; }
     public void setPrev(DNode prev) { this.prev = prev; }
+
+    public long getBytes() { return bytes; }
+    public void addBytes(long delta) { bytes += delta; }
+
+    // Bucket lock; these are no-ops when the list is not concurrent
+    public void lockRead() { if (lock != null && !lockFreeReads) lock.readLock().lock(); }
+    public void unlockRead() { if (lock != null && !lockFreeReads) lock.readLock().unlock(); }
+    public void lockWrite() { if (lock != null) lock.writeLock().lock(); }
+    public void unlockWrite() { if (lock != null) lock.writeLock().unlock(); }
 }
\ No newline at end of file
@@ -1,65 +1,374 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 public class Dictionary {
+    // Journal is compacted into a new snapshot once it grows past this size
+    private static final long COMPACT_THRESHOLD = 16L * 1024 * 1024;
+    private static final long COMMIT_MILLIS = 50;
+    // Word header plus six references and the type code, compressed oops
+    private static final long WORD_BYTES = 40;
+
     private DLinkedList dictionary;
     private Random random;
+    private volatile Journal journal;
+    private String snapshotFile;
+    // Edits hold the read side while they apply and log; compaction holds
+    // the write side so no edit slips between the snapshot and the reset.
+    // DLinkedList logs each edit under its bucket lock, which keeps the
+    // journal in the order the edits were applied.
+    private final ReentrantReadWriteLock journalLock = new ReentrantReadWriteLock();
 
     public Dictionary() {
-        dictionary = new DLinkedList();
+        this(false);
+    }
+
+    // concurrent = true gives per-letter read-write locks so the dictionary
+    // can be shared between threads without an outer lock
+    public Dictionary(boolean concurrent) {
+        this(concurrent, false);
+    }
+
+    // persistent = true makes reads lock-free: exports, statistics and
+    // snapshot() work on a frozen version while edits continue
+    public Dictionary(boolean concurrent, boolean persistent) {
+        this(concurrent, persistent, OrderedIndex.Backend.AVL);
+    }
+
+    // backend picks the tree behind each letter; ARRAY_AVL keeps nodes in
+    // primitive arrays, which suits large dictionaries (not persistent)
+    public Dictionary(boolean concurrent, boolean persistent, OrderedIndex.Backend backend) {
+        dictionary = new DLinkedList(concurrent, persistent, backend);
         random = new Random();
     }
 
+    // Consistent read-only view of the whole dictionary
+    public DLinkedList.Snapshot snapshot() {
+        return dictionary.snapshot();
+    }
+
     public boolean addWord(String word, String englishMeaning,
                            String arabicMeaning, String example, String type) {
         Word newWord = new Word(word, englishMeaning, arabicMeaning, example, type);
-        return dictionary.addWord(newWord);
+        boolean added;
+        journalLock.readLock().lock();
+        try {
+            added = dictionary.addWord(newWord, journal);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        compactIfNeeded();
+        return added;
     }
 
-    public Word searchEnglish(String englishWord) {
+    public Word searchEnglish(CharSequence englishWord) {
         return dictionary.searchEnglish(englishWord);
     }
 
+    // Type-ahead suggestions: the first k words starting with prefix
+    public List<Word> complete(String prefix, int k) {
+        return dictionary.complete(prefix, k);
+    }
+
+    // "Did you mean" suggestions for a word that was not found
+    public List<Word> suggest(String englishWord, int maxDistance, int limit) {
+        return dictionary.suggest(englishWord, maxDistance, limit);
+    }
+
+    // All words in sorted order, read lazily
+    public Stream<Word> stream() {
+        return dictionary.stream();
+    }
+
     public Word searchArabic(String arabicWord) {
         return dictionary.searchArabic(arabicWord);
     }
 
+    public List<Word> searchArabicAll(String arabicWord) {
+        return dictionary.searchArabicAll(arabicWord);
+    }
+
     public boolean updateWord(String englishWord, String englishMeaning,
                               String arabicMeaning, String example, String type) {
         Word updatedWord = new Word(englishWord, englishMeaning,
                 arabicMeaning, example, type);
-        return dictionary.updateWord(englishWord, updatedWord);
+        boolean updated;
+        journalLock.readLock().lock();
+        try {
+            updated = dictionary.updateWord(englishWord, updatedWord, journal);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        compactIfNeeded();
+        return updated;
     }
 
     public boolean deleteWord(String englishWord) {
-        return dictionary.deleteWord(englishWord);
+        boolean deleted;
+        journalLock.readLock().lock();
+        try {
+            deleted = dictionary.deleteWord(englishWord, journal);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        compactIfNeeded();
+        return deleted;
+    }
+
+    // Durable mode: restore the last snapshot, replay the journal on top of
+    // it, then log every add/update/delete to the journal from now on.
+    // A missing snapshot means a first start; an unreadable one throws, so
+    // a later compaction cannot overwrite it with a partial dictionary.
+    public LoadResult open(String snapshotFile, String journalFile) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Dictionary already has a journal open");
+        }
+
+        long start = System.nanoTime();
+        int[] perLetter = new int[26];
+        if (new File(snapshotFile).exists()) {
+            perLetter = restoreSnapshot(snapshotFile);
+        }
+        int replayed = Journal.replay(journalFile, dictionary);
+        if (replayed > 0) {
+            System.out.println("Journal: replayed " + replayed + " edits");
+        }
+
+        this.snapshotFile = snapshotFile;
+        this.journal = new Journal(journalFile, COMMIT_MILLIS);
+        return new LoadResult(dictionary.getTotalWords(), perLetter, new ArrayList<>(),
+                System.nanoTime() - start);
+    }
+
+    // Fold the journal into a fresh snapshot and start an empty journal
+    public void compact() throws IOException {
+        compact(false);
+    }
+
+    // onlyIfLarge re-checks the threshold under the write lock, so writers
+    // that cross it together rewrite the snapshot once, not once each
+    private void compact(boolean onlyIfLarge) throws IOException {
+        journalLock.writeLock().lock();
+        try {
+            if (journal == null || (onlyIfLarge && journal.size() < COMPACT_THRESHOLD)) {
+                return;
+            }
+            journal.commit();
+            SnapshotFile.write(dictionary.snapshot(), snapshotFile);
+            journal.reset();
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    // Waits for edits in progress, so none is applied but left unlogged
+    public void close() throws IOException {
+        journalLock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            journalLock.writeLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+        Journal current = journal;
+        if (current == null || current.size() < COMPACT_THRESHOLD) {
+            return;
+        }
+        try {
+            compact(true);
+        } catch (IOException e) {
+            System.out.println("Error compacting journal: " + e.getMessage());
+        }
+    }
+
+    // Bulk loads bypass the journal, so capture them in a snapshot
+    private void snapshotAfterLoad() {
+        if (journal != null) {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.out.println("Error compacting journal: " + e.getMessage());
+            }
+        }
     }
 
     public int loadFromFile(String filename) {
+        int count = loadTextFile(filename);
+        snapshotAfterLoad();
+        return count;
+    }
+
+    private int loadTextFile(String filename) {
+        // Merging into existing entries has to go word by word
+        if (dictionary.getTotalWords() > 0) {
+            return loadIncremental(filename, System.nanoTime()).getCount();
+        }
+
+        DictionaryFileReader reader = new DictionaryFileReader();
+        List<Word> words = new ArrayList<>();
+        try {
+            reader.read(filename, words::add);
+        } catch (IOException e) {
+            System.out.println("Error loading file: " + e.getMessage());
+            return 0;
+        }
+        printMalformed(reader.getMalformedLines());
+        return dictionary.bulkLoad(words);
+    }
+
+    private LoadResult loadIncremental(String filename, long start) {
+        int[] perLetter = new int[26];
+        DictionaryFileReader reader = new DictionaryFileReader();
         int count = 0;
         try {
-            BufferedReader reader = new BufferedReader(new FileReader(filename));
-            String line;
+            reader.read(filename, word -> {
+                if (dictionary.addWord(word)) {
+                    perLetter[DLinkedList.letterIndex(word)]++;
+                }
+            });
+        } catch (IOException e) {
+            System.out.println("Error loading file: " + e.getMessage());
+        }
+        printMalformed(reader.getMalformedLines());
+
+        for (int c : perLetter) {
+            count += c;
+        }
+        return new LoadResult(count, perLetter, reader.getMalformedLines(), System.nanoTime() - start);
+    }
+
+    // Multi-core load: this thread parses the file and routes words to
+    // per-letter queues, then the pool builds the 26 trees in parallel
+    public LoadResult loadFromFileParallel(String filename) {
+        return loadFromFileParallel(filename, Runtime.getRuntime().availableProcessors());
+    }
 
-            while ((line = reader.readLine()) != null) {
-                Word word = Word.fromString(line);
-                if (word != null && dictionary.addWord(word)) {
-                    count++;
+    public LoadResult loadFromFileParallel(String filename, int threads) {
+        LoadResult result = loadTextFileParallel(filename, threads);
+        snapshotAfterLoad();
+        return result;
+    }
+
+    private LoadResult loadTextFileParallel(String filename, int threads) {
+        long start = System.nanoTime();
+
+        if (dictionary.getTotalWords() > 0) {
+            return loadIncremental(filename, start);
+        }
+
+        List<List<Word>> groups = new ArrayList<>(26);
+        for (int i = 0; i < 26; i++) {
+            groups.add(new ArrayList<>());
+        }
+
+        DictionaryFileReader reader = new DictionaryFileReader();
+        try {
+            reader.read(filename, word -> {
+                int letter = DLinkedList.letterIndex(word);
+                if (letter >= 0) {
+                    groups.get(letter).add(word);
                 }
-            }
-            reader.close();
+            });
         } catch (IOException e) {
             System.out.println("Error loading file: " + e.getMessage());
+            return new LoadResult(0, new int[26], reader.getMalformedLines(), System.nanoTime() - start);
+        }
+        printMalformed(reader.getMalformedLines());
+
+        int[] perLetter;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            perLetter = dictionary.bulkLoadParallel(groups, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        int count = 0;
+        for (int c : perLetter) {
+            count += c;
+        }
+        return new LoadResult(count, perLetter, reader.getMalformedLines(), System.nanoTime() - start);
+    }
+
+    // Binary snapshot: much faster to restore than the text format, which
+    // stays available through loadFromFile/saveToFile for import/export
+    public int saveSnapshot(String filename) {
+        try {
+            return SnapshotFile.write(dictionary.snapshot(), filename);
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    public LoadResult loadSnapshot(String filename) {
+        LoadResult result = readSnapshot(filename);
+        snapshotAfterLoad();
+        return result;
+    }
+
+    private LoadResult readSnapshot(String filename) {
+        long start = System.nanoTime();
+        int[] perLetter = new int[26];
+        try {
+            perLetter = restoreSnapshot(filename);
+        } catch (IOException e) {
+            System.out.println("Error loading snapshot: " + e.getMessage());
+        }
+
+        int count = 0;
+        for (int c : perLetter) {
+            count += c;
+        }
+        return new LoadResult(count, perLetter, new ArrayList<>(), System.nanoTime() - start);
+    }
+
+    // Words added per letter
+    private int[] restoreSnapshot(String filename) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<List<Word>> groups = SnapshotFile.read(filename, pool);
+
+            if (dictionary.getTotalWords() == 0) {
+                return dictionary.bulkLoadParallel(groups, pool);
+            }
+            int[] perLetter = new int[26];
+            for (List<Word> group : groups) {
+                for (Word word : group) {
+                    if (dictionary.addWord(word)) {
+                        perLetter[DLinkedList.letterIndex(word)]++;
+                    }
+                }
+            }
+            return perLetter;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void printMalformed(List<DictionaryFileReader.MalformedLine> malformed) {
+        for (DictionaryFileReader.MalformedLine line : malformed) {
+            System.out.println("Skipped malformed " + line);
         }
-        return count;
     }
 
     public int saveToFile(String filename) {
         List<Word> allWords = dictionary.getAllWords();
         try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(filename), StandardCharsets.UTF_8));
 
             for (Word word : allWords) {
                 writer.write(word.toString());
@@ -74,52 +383,147 @@ public class Dictionary {
     }
 
     public String translateEnglishToArabic(String text) {
-        String[] words = text.split(" ");
-        StringBuilder result = new StringBuilder();
+        StringBuilder result = new StringBuilder(text.length());
+        translateEnglishToArabic(text, result, null);
+        return result.toString();
+    }
+
+    // Single pass over the text: runs of letters (with inner ' or -) are
+    // looked up and replaced by their Arabic meaning, everything else is
+    // copied as is. Multi-word entries take precedence, leftmost and then
+    // longest first. Hits and misses are added to counts when it is given.
+    public void translateEnglishToArabic(CharSequence text, StringBuilder out, TranslationCounts counts) {
+        StringBuilder key = new StringBuilder(32);
+        List<PhraseMatcher.Match> phrases = dictionary.findPhrases(text);
+        int nextPhrase = 0;
+        int hits = 0;
+        int misses = 0;
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            while (nextPhrase < phrases.size() && phrases.get(nextPhrase).getStart() < i) {
+                nextPhrase++;
+            }
+            if (nextPhrase < phrases.size() && phrases.get(nextPhrase).getStart() == i) {
+                PhraseMatcher.Match phrase = phrases.get(nextPhrase);
+                out.append(phrase.getWord().getArabicMeaning());
+                hits++;
+                i = phrase.getEnd();
+                continue;
+            }
 
-        for (String word : words) {
-            String cleanWord = word.replaceAll("[^a-zA-Z]", "");
-            Word found = dictionary.searchEnglish(cleanWord);
+            if (!isLetter(text.charAt(i))) {
+                out.append(text.charAt(i++));
+                continue;
+            }
+
+            int start = i;
+            boolean inner = false;
+            while (i < length && (isLetter(text.charAt(i))
+                    || (isJoiner(text.charAt(i)) && i + 1 < length && isLetter(text.charAt(i + 1))))) {
+                inner |= !isLetter(text.charAt(i));
+                i++;
+            }
+
+            key.setLength(0);
+            key.append(text, start, i);
+            Word found = dictionary.searchEnglish(key);
+            if (found == null && inner) {
+                // "don't" -> "dont", as the word list stores it without punctuation
+                key.setLength(0);
+                for (int j = start; j < i; j++) {
+                    if (isLetter(text.charAt(j))) {
+                        key.append(text.charAt(j));
+                    }
+                }
+                found = dictionary.searchEnglish(key);
+            }
 
             if (found != null) {
-                result.append(found.getArabicMeaning()).append(" ");
+                out.append(found.getArabicMeaning());
+                hits++;
             } else {
-                result.append(word).append(" ");
+                out.append(text, start, i);
+                misses++;
             }
         }
-        return result.toString().trim();
+
+        if (counts != null) {
+            counts.add(hits, misses);
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isJoiner(char c) {
+        return c == '\'' || c == '-';
     }
 
     public String translateArabicToEnglish(String text) {
-        String[] words = text.split(" ");
-        StringBuilder result = new StringBuilder();
+        StringBuilder result = new StringBuilder(text.length());
+        translateArabicToEnglish(text, result, null);
+        return result.toString();
+    }
 
-        for (String word : words) {
-            Word found = dictionary.searchArabic(word);
-            if (found != null) {
-                result.append(found.getWord()).append(" ");
-            } else {
-                result.append(word).append(" ");
+    // Whitespace-separated tokens are looked up by their normalized Arabic
+    // form, so tashkeel and letter variants still match. Whitespace and
+    // punctuation around a token are copied as is.
+    public void translateArabicToEnglish(CharSequence text, StringBuilder out, TranslationCounts counts) {
+        int hits = 0;
+        int misses = 0;
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                out.append(text.charAt(i++));
+                continue;
             }
-        }
-        return result.toString().trim();
-    }
 
-    private Word getRandomWordByType(String type) {
-        List<Word> allWords = dictionary.getAllWords();
-        List<Word> wordsOfType = new ArrayList<>();
+            int start = i;
+            while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+
+            // Keep punctuation such as "،" or "." out of the key
+            int first = start;
+            int last = i;
+            while (first < last && !isArabicWordChar(text.charAt(first))) {
+                first++;
+            }
+            while (last > first && !isArabicWordChar(text.charAt(last - 1))) {
+                last--;
+            }
 
-        for (Word word : allWords) {
-            if (word.getType().equalsIgnoreCase(type)) {
-                wordsOfType.add(word);
+            Word found = first < last
+                    ? dictionary.searchArabicKey(ArabicNormalizer.normalize(text, first, last))
+                    : null;
+            if (found != null) {
+                out.append(text, start, first);
+                out.append(found.getWord());
+                out.append(text, last, i);
+                hits++;
+            } else {
+                out.append(text, start, i);
+                misses++;
             }
         }
 
-        if (!wordsOfType.isEmpty()) {
-            int index = random.nextInt(wordsOfType.size());
-            return wordsOfType.get(index);
+        if (counts != null) {
+            counts.add(hits, misses);
         }
-        return null;
+    }
+
+    // Letters, digits and combining marks (tashkeel) belong to a word
+    private static boolean isArabicWordChar(char c) {
+        return Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    private Word getRandomWordByType(String type) {
+        return dictionary.getRandomWordByType(type, random);
     }
 
     public String generateEnglishSentence() {
@@ -152,10 +556,62 @@ public class Dictionary {
         return dictionary.getLetterCounts();
     }
 
+    public List<DLinkedList.BucketStats> getBucketStats() {
+        return dictionary.getBucketStats();
+    }
+
     public List<DLinkedList.TypeCount> getTypeCounts() {
         return dictionary.getTypeCounts();
     }
 
+    // Estimated heap used by the words and their strings (the trees and
+    // secondary indexes are not counted). Neither figure is measured: both
+    // are computed from assumed object sizes (WORD_BYTES, stringBytes).
+    // "Before" is the same data with every field in its own String, as each
+    // line of a file used to be loaded; "after" counts each shared String once.
+    // OFF_HEAP dictionaries hold no Strings to estimate; their report gives
+    // the byte counts the word stores keep, without decoding any word.
+    public MemoryReport getMemoryReport() {
+        long[] offHeap = dictionary.getOffHeapBytes();
+        if (offHeap != null) {
+            return new MemoryReport(dictionary.getTotalWords(), offHeap[0], offHeap[1], offHeap[2]);
+        }
+
+        Map<String, Boolean> seen = new IdentityHashMap<>();
+        long[] totals = new long[3]; // words, before, after
+
+        dictionary.stream().forEachOrdered(word -> {
+            totals[0]++;
+            totals[1] += WORD_BYTES;
+            totals[2] += WORD_BYTES;
+            String[] fields = {word.getWord(), word.getEnglishMeaning(), word.getArabicMeaning(),
+                    word.getExample(), word.getType(), word.getKey(), word.getArabicKey()};
+            for (int i = 0; i < fields.length; i++) {
+                String field = fields[i];
+                // The keys already shared their source string when unchanged
+                boolean alias = (i == 5 && field == fields[0]) || (i == 6 && field == fields[2]);
+                if (field == null || alias) {
+                    continue;
+                }
+                totals[1] += stringBytes(field);
+                if (seen.put(field, Boolean.TRUE) == null) {
+                    totals[2] += stringBytes(field);
+                }
+            }
+        });
+        return new MemoryReport((int) totals[0], totals[1], totals[2], seen.size());
+    }
+
+    // String object plus its byte[]: Latin-1 strings take one byte per char
+    private static long stringBytes(String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) < 256;
+        }
+        long array = 16 + (latin1 ? s.length() : 2L * s.length());
+        return 24 + ((array + 7) & ~7L);
+    }
+
     public List<DLinkedList.LetterHeight> getTreeHeights() {
         return dictionary.getTreeHeights();
     }
@@ -168,7 +624,111 @@ public class Dictionary {
         return dictionary.getAllWords();
     }
 
+    // Word at a position in sorted order, for paging without getAllWords()
+    public Word wordAt(int index) {
+        return dictionary.wordAt(index);
+    }
+
+    // Uniformly random word from the whole dictionary
+    public Word getRandomWord() {
+        int total = dictionary.getTotalWords();
+        if (total == 0) {
+            return null;
+        }
+        return dictionary.wordAt(random.nextInt(total));
+    }
+
     public int getTotalWords() {
         return dictionary.getTotalWords();
     }
+
+    public static class MemoryReport {
+        public int words;
+        public long bytesBefore;
+        public long bytesAfter;
+        public int distinctStrings;
+        // OFF_HEAP only, counted by the word stores; the estimates above are 0
+        public boolean offHeap;
+        public long reservedBytes;
+        public long liveBytes;
+        public long garbageBytes;
+
+        public MemoryReport(int words, long bytesBefore, long bytesAfter, int distinctStrings) {
+            this.words = words;
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+            this.distinctStrings = distinctStrings;
+        }
+
+        public MemoryReport(int words, long reservedBytes, long liveBytes, long garbageBytes) {
+            this.words = words;
+            this.offHeap = true;
+            this.reservedBytes = reservedBytes;
+            this.liveBytes = liveBytes;
+            this.garbageBytes = garbageBytes;
+        }
+
+        public int getWords() { return words; }
+        public long getBytesBefore() { return bytesBefore; }
+        public long getBytesAfter() { return bytesAfter; }
+        public int getDistinctStrings() { return distinctStrings; }
+        public boolean isOffHeap() { return offHeap; }
+        public long getReservedBytes() { return reservedBytes; }
+        public long getLiveBytes() { return liveBytes; }
+        public long getGarbageBytes() { return garbageBytes; }
+
+        public double getBytesPerWordBefore() { return words == 0 ? 0 : (double) bytesBefore / words; }
+        public double getBytesPerWordAfter() { return words == 0 ? 0 : (double) bytesAfter / words; }
+
+        @Override
+        public String toString() {
+            if (offHeap) {
+                return String.format("%d words off-heap: %.1f MB reserved, %.1f MB live (%.0f bytes/word), %.1f MB garbage",
+                        words, reservedBytes / 1e6, liveBytes / 1e6,
+                        words == 0 ? 0.0 : (double) liveBytes / words, garbageBytes / 1e6);
+            }
+            return String.format("%d words, estimated: %.0f bytes/word without sharing, %.0f bytes/word shared (%.1f MB saved)",
+                    words, getBytesPerWordBefore(), getBytesPerWordAfter(),
+                    (bytesBefore - bytesAfter) / 1e6);
+        }
+    }
+
+    public static class LoadResult {
+        public int count;
+        public int[] perLetter;
+        public List<DictionaryFileReader.MalformedLine> malformed;
+        public long nanos;
+
+        public LoadResult(int count, int[] perLetter,
+                          List<DictionaryFileReader.MalformedLine> malformed, long nanos) {
+            this.count = count;
+            this.perLetter = perLetter;
+            this.malformed = malformed;
+            this.nanos = nanos;
+        }
+
+        public int getCount() { return count; }
+        public List<DictionaryFileReader.MalformedLine> getMalformed() { return malformed; }
+        public int getCount(char letter) { return perLetter[Character.toUpperCase(letter) - 'A']; }
+        public long getMillis() { return nanos / 1_000_000; }
+    }
+
+    // Words found and not found by the translators; safe to share between threads
+    public static class TranslationCounts {
+        private long hits;
+        private long misses;
+
+        public synchronized void add(long hits, long misses) {
+            this.hits += hits;
+            this.misses += misses;
+        }
+
+        public synchronized long getHits() { return hits; }
+        public synchronized long getMisses() { return misses; }
+
+        public synchronized double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Reads "word;english;arabic;example;type" lines through a memory-mapped
+// file. Bytes are scanned for ';' and '\n' in place and each field is
+// decoded as UTF-8 straight from the mapping, so the only objects created
+// per line are the five field Strings and the Word. Meanings and examples
+// are deduplicated through a StringPool that lasts for one read().
+public class DictionaryFileReader {
+    private static final int FIELDS = 5;
+    // Files are mapped in windows of at most this many bytes
+    private static final int WINDOW = 1 << 28;
+
+    private final CharsetDecoder decoder;
+    private CharBuffer chars;
+    private ByteBuffer view; // window used to hand one field at a time to the decoder
+    private final int[] separators;
+    private final List<MalformedLine> malformed;
+    private StringPool strings;
+
+    public DictionaryFileReader() {
+        decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        chars = CharBuffer.allocate(256);
+        separators = new int[FIELDS - 1];
+        malformed = new ArrayList<>();
+    }
+
+    // Parse every line of the file and pass the words to handler.
+    // Blank lines are skipped; lines Word.fromString would reject or whose
+    // word does not start with a letter A-Z are recorded in getMalformedLines().
+    // Returns the number of words passed to handler.
+    public int read(String filename, Consumer<Word> handler) throws IOException {
+        malformed.clear();
+        strings = new StringPool();
+        int count = 0;
+        long lineNumber = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long base = 0;
+
+            while (base < fileSize) {
+                long length = Math.min(WINDOW, fileSize - base);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+                view = buffer.duplicate();
+                boolean lastWindow = base + length == fileSize;
+
+                int pos = 0;
+                int limit = (int) length;
+                if (base == 0 && hasBom(buffer, limit)) {
+                    pos = 3;
+                }
+
+                while (pos < limit) {
+                    int end = pos;
+                    int found = 0;
+                    byte b;
+                    while (end < limit && (b = buffer.get(end)) != '\n') {
+                        if (b == ';') {
+                            if (found < separators.length) {
+                                separators[found] = end;
+                            }
+                            found++;
+                        }
+                        end++;
+                    }
+
+                    if (end == limit && !lastWindow) {
+                        if (pos == 0) {
+                            throw new IOException("Line longer than " + WINDOW + " bytes at offset " + base);
+                        }
+                        break; // line continues in the next window
+                    }
+
+                    lineNumber++;
+                    int lineEnd = end;
+                    if (lineEnd > pos && buffer.get(lineEnd - 1) == '\r') {
+                        lineEnd--;
+                    }
+
+                    if (lineEnd > pos) {
+                        Word word = parseLine(buffer, pos, lineEnd, found, base + pos, lineNumber);
+                        if (word != null) {
+                            handler.accept(word);
+                            count++;
+                        }
+                    }
+                    pos = end + 1;
+                }
+
+                base += Math.min(pos, limit);
+            }
+        }
+        strings = null; // the pool is only needed while reading
+        return count;
+    }
+
+    public List<MalformedLine> getMalformedLines() {
+        return malformed;
+    }
+
+    private Word parseLine(MappedByteBuffer buffer, int start, int end, int found,
+                           long offset, long lineNumber) {
+        // Trailing empty fields do not count, as with String.split(";"), so
+        // "a;b;c;d;e;" is accepted and "a;b;c;d;" has only four fields
+        while (end > start && buffer.get(end - 1) == ';') {
+            end--;
+            found--;
+        }
+        if (found != FIELDS - 1) {
+            malformed.add(new MalformedLine(offset, lineNumber,
+                    "expected " + FIELDS + " fields, found " + (found + 1)));
+            return null;
+        }
+
+        String word = decode(start, separators[0]);
+        String englishMeaning = decode(separators[0] + 1, separators[1]);
+        String arabicMeaning = decode(separators[1] + 1, separators[2]);
+        String example = decode(separators[2] + 1, separators[3]);
+        String type = decode(separators[3] + 1, end);
+
+        if (word == null || englishMeaning == null || arabicMeaning == null
+                || example == null || type == null) {
+            malformed.add(new MalformedLine(offset, lineNumber, "invalid UTF-8"));
+            return null;
+        }
+        Word result = new Word(word, strings.intern(englishMeaning), strings.intern(arabicMeaning),
+                strings.intern(example), type);
+        if (DLinkedList.letterIndex(result) < 0) {
+            malformed.add(new MalformedLine(offset, lineNumber, "word must start with a letter A-Z"));
+            return null;
+        }
+        return result;
+    }
+
+    // Decode bytes [start, end) of the mapping, or null if not valid UTF-8
+    private String decode(int start, int end) {
+        if (start == end) {
+            return "";
+        }
+
+        view.limit(end);
+        view.position(start);
+
+        if (chars.capacity() < end - start) {
+            chars = CharBuffer.allocate(end - start);
+        }
+        chars.clear();
+        decoder.reset();
+
+        CoderResult result = decoder.decode(view, chars, true);
+        if (result.isError()) {
+            return null;
+        }
+        decoder.flush(chars);
+        return new String(chars.array(), 0, chars.position());
+    }
+
+    private static boolean hasBom(MappedByteBuffer buffer, int limit) {
+        return limit >= 3
+                && buffer.get(0) == (byte) 0xEF
+                && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF;
+    }
+
+    public static class MalformedLine {
+        public long offset;
+        public long lineNumber;
+        public String reason;
+
+        public MalformedLine(long offset, long lineNumber, String reason) {
+            this.offset = offset;
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+        }
+
+        public long getOffset() { return offset; }
+        public long getLineNumber() { return lineNumber; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + " (byte " + offset + "): " + reason;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Translates a text file into another file without holding either in memory.
+//
+// A reader thread cuts the input into chunks that end on a line break (or
+// on whitespace for very long lines, so no word is split) and hands them to
+// a fixed pool of workers. The calling thread writes the translated chunks
+// in input order. Only a bounded number of chunks are in flight: when the
+// writer falls behind, the reader blocks until it catches up.
+//
+// Multi-word phrases are matched within one chunk only. A chunk ends after
+// a line break, or at whitespace inside a line longer than chunkChars, so a
+// phrase that runs across the point where a chunk ends (wrapped onto the
+// next line, or cut inside a very long line) is translated word by word.
+public class DocumentTranslator {
+    public static final int DEFAULT_CHUNK_CHARS = 1 << 20;
+
+    private final Dictionary dictionary;
+    private final boolean toArabic;
+    private final int threads;
+    private final int chunkChars;
+
+    public DocumentTranslator(Dictionary dictionary, boolean toArabic) {
+        this(dictionary, toArabic, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_CHARS);
+    }
+
+    public DocumentTranslator(Dictionary dictionary, boolean toArabic, int threads, int chunkChars) {
+        if (threads < 1 || chunkChars < 1) {
+            throw new IllegalArgumentException("threads and chunkChars must be positive");
+        }
+        this.dictionary = dictionary;
+        this.toArabic = toArabic;
+        this.threads = threads;
+        this.chunkChars = chunkChars;
+    }
+
+    public Result translate(String inputFile, String outputFile) throws IOException {
+        long start = System.nanoTime();
+        Path input = Paths.get(inputFile);
+        Path output = Paths.get(outputFile).toAbsolutePath();
+        Dictionary.TranslationCounts counts = new Dictionary.TranslationCounts();
+
+        // Written next to the output and renamed over it only once complete,
+        // so a failed run leaves no partial file behind
+        Path partial = Files.createTempFile(output.getParent(), output.getFileName() + ".", ".part");
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "translate-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(threads * 2);
+        Future<String> end = CompletableFuture.completedFuture(null);
+        AtomicReference<Throwable> readError = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            boolean stopped = false;
+            try (Reader in = new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8)) {
+                readChunks(in, workers, pending, counts);
+            } catch (InterruptedException e) {
+                stopped = true; // the writer gave up; nothing left to do
+            } catch (Throwable e) {
+                readError.set(e);
+            } finally {
+                // However reading ended, the writer must see the end marker
+                if (!stopped) {
+                    try {
+                        pending.put(end);
+                    } catch (InterruptedException e) {
+                        // the writer gave up
+                    }
+                }
+            }
+        }, "translate-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        boolean complete = false;
+        try {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(partial), StandardCharsets.UTF_8), 1 << 16)) {
+                while (true) {
+                    Future<String> next = pending.take();
+                    if (next == end) {
+                        break;
+                    }
+                    out.write(next.get());
+                }
+            }
+
+            Throwable error = readError.get();
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error != null) {
+                throw new IOException("Translation failed: " + error, error);
+            }
+            try {
+                Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING);
+            }
+            complete = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Translation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Translation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            reader.interrupt();
+            workers.shutdownNow();
+            if (!complete) {
+                Files.deleteIfExists(partial);
+            }
+        }
+
+        return new Result(Files.size(input), Files.size(output),
+                counts.getHits(), counts.getMisses(), System.nanoTime() - start);
+    }
+
+    private void readChunks(Reader in, ExecutorService workers, BlockingQueue<Future<String>> pending,
+                            Dictionary.TranslationCounts counts) throws IOException, InterruptedException {
+        char[] buffer = new char[chunkChars];
+        int filled = 0;
+
+        int n;
+        while ((n = in.read(buffer, filled, buffer.length - filled)) >= 0) {
+            filled += n;
+            if (filled < buffer.length) {
+                continue;
+            }
+
+            int cut = chunkEnd(buffer, filled);
+            String chunk = new String(buffer, 0, cut);
+            pending.put(workers.submit(() -> translateChunk(chunk, counts)));
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+        }
+
+        if (filled > 0) {
+            String chunk = new String(buffer, 0, filled);
+            pending.put(workers.submit(() -> translateChunk(chunk, counts)));
+        }
+    }
+
+    // End of the chunk: after the last line break, else after the last
+    // whitespace, else the whole buffer (never between a surrogate pair)
+    private static int chunkEnd(char[] buffer, int filled) {
+        int whitespace = -1;
+        for (int i = filled - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+            if (whitespace < 0 && Character.isWhitespace(buffer[i])) {
+                whitespace = i;
+            }
+        }
+        if (whitespace >= 0) {
+            return whitespace + 1;
+        }
+        return Character.isHighSurrogate(buffer[filled - 1]) ? filled - 1 : filled;
+    }
+
+    private String translateChunk(String chunk, Dictionary.TranslationCounts counts) {
+        StringBuilder out = new StringBuilder(chunk.length() + chunk.length() / 4);
+        if (toArabic) {
+            dictionary.translateEnglishToArabic(chunk, out, counts);
+        } else {
+            dictionary.translateArabicToEnglish(chunk, out, counts);
+        }
+        return out.toString();
+    }
+
+    public static class Result {
+        public long bytesIn;
+        public long bytesOut;
+        public long hits;
+        public long misses;
+        public long nanos;
+
+        public Result(long bytesIn, long bytesOut, long hits, long misses, long nanos) {
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.hits = hits;
+            this.misses = misses;
+            this.nanos = nanos;
+        }
+
+        public long getBytesIn() { return bytesIn; }
+        public long getBytesOut() { return bytesOut; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getMillis() { return nanos / 1_000_000; }
+
+        // Input megabytes translated per second
+        public double getMegabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytesIn / 1e6) / (nanos / 1e9);
+        }
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f MB in %d ms (%.1f MB/s), %d of %d words translated (%.1f%%)",
+                    bytesIn / 1e6, getMillis(), getMegabytesPerSecond(),
+                    hits, hits + misses, getHitRatio() * 100);
+        }
+    }
+
+    // Usage: DocumentTranslator <dictionary> <input> <output> [en-ar|ar-en] [threads]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: DocumentTranslator <dictionary> <input> <output> [en-ar|ar-en] [threads]");
+            return;
+        }
+        boolean toArabic = args.length < 4 || !args[3].equalsIgnoreCase("ar-en");
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Dictionary dictionary = new Dictionary();
+        Dictionary.LoadResult loaded = dictionary.loadFromFileParallel(args[0]);
+        System.out.println("Loaded " + loaded.getCount() + " words in " + loaded.getMillis() + " ms");
+
+        DocumentTranslator translator = new DocumentTranslator(dictionary, toArabic, threads, DEFAULT_CHUNK_CHARS);
+        System.out.println(translator.translate(args[1], args[2]));
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compares the bucket backends on one dictionary file: load time, random
+// lookups, a full in-order scan and type-ahead completions. Each figure is
+// the best of several rounds, so JIT warm-up and GC noise count less.
+// The height column counts nodes on the AVL backends and levels on BPLUS.
+//
+// Usage: IndexBenchmark <dictionary> [lookups] [rounds] [backend...]
+public class IndexBenchmark {
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: IndexBenchmark <dictionary> [lookups] [rounds] [backend...]");
+            return;
+        }
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        if (lookups < 1 || rounds < 1) {
+            System.out.println("lookups and rounds must be at least 1");
+            return;
+        }
+        List<OrderedIndex.Backend> backends = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            backends.add(OrderedIndex.Backend.valueOf(args[i].toUpperCase()));
+        }
+        if (backends.isEmpty()) {
+            backends.addAll(List.of(OrderedIndex.Backend.values()));
+        }
+
+        System.out.println(String.format("%-10s %10s %12s %12s %12s %7s",
+                "backend", "load ms", "lookup ns", "scan ms", "prefix ns", "height"));
+        for (OrderedIndex.Backend backend : backends) {
+            System.out.println(run(args[0], backend, lookups, rounds));
+        }
+    }
+
+    private static String run(String filename, OrderedIndex.Backend backend, int lookups, int rounds) {
+        long load = Long.MAX_VALUE;
+        Dictionary dictionary = null;
+        for (int round = 0; round < Math.min(rounds, 3); round++) {
+            dictionary = null;
+            System.gc();
+            Dictionary loaded = new Dictionary(false, false, backend);
+            long start = System.nanoTime();
+            loaded.loadFromFileParallel(filename);
+            load = Math.min(load, System.nanoTime() - start);
+            dictionary = loaded;
+        }
+
+        int total = dictionary.getTotalWords();
+        if (total == 0) {
+            return String.format("%-10s (empty dictionary)", backend);
+        }
+
+        // Same queries for every backend: existing words in random order,
+        // in mixed case so the folding path is exercised too
+        Random random = new Random(42);
+        String[] queries = new String[Math.min(lookups, 100_000)];
+        for (int i = 0; i < queries.length; i++) {
+            String word = dictionary.getRandomWord().getWord();
+            queries[i] = random.nextBoolean() ? word.toUpperCase() : word;
+        }
+
+        long lookup = Long.MAX_VALUE;
+        long scan = Long.MAX_VALUE;
+        long prefix = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                if (dictionary.searchEnglish(queries[i % queries.length]) != null) {
+                    sink++;
+                }
+            }
+            lookup = Math.min(lookup, (System.nanoTime() - start) / lookups);
+
+            start = System.nanoTime();
+            sink += dictionary.stream().count();
+            scan = Math.min(scan, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < queries.length; i++) {
+                String query = queries[i];
+                sink += dictionary.complete(query.substring(0, Math.min(2, query.length())), 10).size();
+            }
+            prefix = Math.min(prefix, (System.nanoTime() - start) / queries.length);
+        }
+
+        int height = 0;
+        for (DLinkedList.LetterHeight letter : dictionary.getTreeHeights()) {
+            height = Math.max(height, letter.getHeight());
+        }
+        if (sink == 42) {
+            System.out.println(); // keeps the loops from being optimized away
+        }
+        return String.format("%-10s %10d %12d %12d %12d %7d", backend, load / 1_000_000,
+                lookup, scan / 1_000_000, prefix, height);
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead journal of dictionary edits.
+//
+// Each record is: int length, int crc32, then the payload (byte op followed
+// by length-prefixed UTF-8 fields). Appends go to an in-memory batch that a
+// background thread writes and fsyncs once per commit window, so a crash
+// loses at most the last window. Replay stops at the first torn or corrupt
+// record and cuts the file back to the last good one.
+//
+// Every record carries full values (last writer wins per key), so replaying
+// a journal over a snapshot that already contains some of its edits ends in
+// the same state.
+public class Journal {
+    public static final byte ADD = 1;
+    public static final byte UPDATE = 2;
+    public static final byte DELETE = 3;
+
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+    private ByteArrayOutputStream pending;
+    private long size;
+    private boolean closed;
+
+    // Open (or create) the journal for appending, committing every commitMillis
+    public Journal(String filename, long commitMillis) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+        pending = new ByteArrayOutputStream();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                commit();
+            } catch (IOException e) {
+                System.out.println("Error writing journal: " + e.getMessage());
+            }
+        }, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void logAdd(Word word) {
+        append(ADD, word.getWord(), word.getEnglishMeaning(), word.getArabicMeaning(),
+                word.getExample(), word.getType());
+    }
+
+    public void logUpdate(String englishWord, Word word) {
+        append(UPDATE, englishWord, word.getWord(), word.getEnglishMeaning(),
+                word.getArabicMeaning(), word.getExample(), word.getType());
+    }
+
+    public void logDelete(String englishWord) {
+        append(DELETE, englishWord);
+    }
+
+    private void append(byte op, String... fields) {
+        byte[] payload;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(op);
+            for (String field : fields) {
+                byte[] utf8 = field.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            payload = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for in-memory streams
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            writeInt(pending, payload.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(payload, 0, payload.length);
+            size += 8 + payload.length;
+        }
+    }
+
+    // Write and fsync everything appended so far
+    public void commit() throws IOException {
+        synchronized (flushLock) {
+            byte[] batch;
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                batch = pending.toByteArray();
+                pending.reset();
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    // Bytes in the journal, including edits not yet committed
+    public synchronized long size() {
+        return size;
+    }
+
+    // Drop all records once they are covered by a snapshot
+    public void reset() throws IOException {
+        synchronized (flushLock) {
+            synchronized (this) {
+                pending.reset();
+                size = 0;
+            }
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    public void close() throws IOException {
+        flusher.shutdown();
+        commit();
+        synchronized (this) {
+            closed = true;
+        }
+        channel.close();
+    }
+
+    // Apply the records of a journal file to the list; returns how many were applied
+    public static int replay(String filename, DLinkedList list) throws IOException {
+        Path path = Paths.get(filename);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large to replay: " + filename);
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // keep reading
+            }
+            data.flip();
+            long good = 0;
+
+            while (data.remaining() >= 8) {
+                int length = data.getInt();
+                int expected = data.getInt();
+                if (length <= 0 || length > data.remaining()) {
+                    break; // torn write at the tail
+                }
+
+                byte[] payload = new byte[length];
+                data.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+
+                apply(ByteBuffer.wrap(payload), list);
+                applied++;
+                good = data.position();
+            }
+
+            if (good < channel.size()) {
+                System.out.println("Journal: discarding " + (channel.size() - good) + " bytes after last good record");
+                channel.truncate(good);
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(ByteBuffer payload, DLinkedList list) {
+        byte op = payload.get();
+        switch (op) {
+            case ADD:
+                list.addWord(readWord(payload));
+                break;
+            case UPDATE:
+                String englishWord = readField(payload);
+                list.updateWord(englishWord, readWord(payload));
+                break;
+            case DELETE:
+                list.deleteWord(readField(payload));
+                break;
+            default:
+                System.out.println("Journal: skipping unknown record type " + op);
+        }
+    }
+
+    private static Word readWord(ByteBuffer payload) {
+        return new Word(readField(payload), readField(payload), readField(payload),
+                readField(payload), readField(payload));
+    }
+
+    private static String readField(ByteBuffer payload) {
+        int length = payload.getInt();
+        String value = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
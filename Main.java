@@ -1,4 +1,8 @@
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -6,10 +10,16 @@ import javafx.scene.layout.*;
 import javafx.scene.transform.Translate;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import java.io.*;
 import java.util.List;
 
 public class Main extends Application {
+    // Edits are journaled next to the last snapshot, so they survive a
+    // restart without Save Dictionary
+    private static final String SNAPSHOT_FILE = "dictionary.snap";
+    private static final String JOURNAL_FILE = "dictionary.journal";
+
     private Dictionary dictionary;
     private TextArea outputArea;
     private Stage primaryStage;
@@ -22,7 +32,8 @@ public class Main extends Application {
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
-        dictionary = new Dictionary();
+        // Concurrent so file translations can read while the tabs edit
+        dictionary = new Dictionary(true);
 
         // Create main layout
         BorderPane root = new BorderPane();
@@ -58,6 +69,33 @@ public class Main extends Application {
         primaryStage.setTitle("Dictionary System");
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        openJournal();
+    }
+
+    // Restore the last snapshot and replay the journal. On a first start
+    // neither file exists and the dictionary starts empty; if they cannot
+    // be read, the session runs without a journal and leaves them alone.
+    private void openJournal() {
+        try {
+            Dictionary.LoadResult result = dictionary.open(SNAPSHOT_FILE, JOURNAL_FILE);
+            if (result.getCount() > 0) {
+                showOutput("Restored " + result.getCount() + " words (" + result.getMillis() + " ms)");
+            }
+        } catch (IOException e) {
+            dictionary = new Dictionary(true);
+            showOutput("Could not restore " + SNAPSHOT_FILE + " / " + JOURNAL_FILE + ": " + e.getMessage());
+            showOutput("Edits in this session will not be saved automatically");
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            dictionary.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
     }
 
     private MenuBar createMenuBar() {
@@ -74,11 +112,19 @@ public class Main extends Application {
         MenuItem saveItem = new MenuItem("Save Dictionary");
         saveItem.setOnAction(e -> saveDictionary());
 
+        // Binary snapshots
+        MenuItem loadSnapshotItem = new MenuItem("Load Snapshot");
+        loadSnapshotItem.setOnAction(e -> loadSnapshot());
+
+        MenuItem saveSnapshotItem = new MenuItem("Save Snapshot");
+        saveSnapshotItem.setOnAction(e -> saveSnapshot());
+
         // Exit
         MenuItem exitItem = new MenuItem("Exit");
         exitItem.setOnAction(e -> primaryStage.close());
 
-        fileMenu.getItems().addAll(loadItem, saveItem, new SeparatorMenuItem(), exitItem);
+        fileMenu.getItems().addAll(loadItem, saveItem, new SeparatorMenuItem(),
+                loadSnapshotItem, saveSnapshotItem, new SeparatorMenuItem(), exitItem);
 
         menuBar.getMenus().addAll(fileMenu);
         return menuBar;
@@ -93,8 +139,17 @@ public class Main extends Application {
 
         File file = fileChooser.showOpenDialog(primaryStage);
         if (file != null) {
-            int count = dictionary.loadFromFile(file.getAbsolutePath());
-            showOutput("Loaded " + count + " words from: " + file.getName());
+            Dictionary.LoadResult result = dictionary.loadFromFileParallel(file.getAbsolutePath());
+            showOutput("Loaded " + result.getCount() + " words from: " + file.getName() +
+                    " (" + result.getMillis() + " ms)");
+            List<DictionaryFileReader.MalformedLine> malformed = result.getMalformed();
+            for (int i = 0; i < malformed.size() && i < 10; i++) {
+                showOutput("Skipped malformed " + malformed.get(i));
+            }
+            if (malformed.size() > 10) {
+                showOutput("... " + (malformed.size() - 10) + " more malformed lines skipped");
+            }
+            showOutput("Memory: " + dictionary.getMemoryReport());
         }
     }
 
@@ -117,6 +172,40 @@ public class Main extends Application {
         }
     }
 
+    private void loadSnapshot() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Load Dictionary Snapshot");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Dictionary Snapshots", "*.dms")
+        );
+
+        File file = fileChooser.showOpenDialog(primaryStage);
+        if (file != null) {
+            Dictionary.LoadResult result = dictionary.loadSnapshot(file.getAbsolutePath());
+            showOutput("Loaded " + result.getCount() + " words from snapshot: " + file.getName() +
+                    " (" + result.getMillis() + " ms)");
+        }
+    }
+
+    private void saveSnapshot() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Dictionary Snapshot");
+        fileChooser.setInitialFileName("dictionary.dms");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Dictionary Snapshots", "*.dms")
+        );
+
+        File file = fileChooser.showSaveDialog(primaryStage);
+        if (file != null) {
+            int count = dictionary.saveSnapshot(file.getAbsolutePath());
+            if (count >= 0) {
+                showOutput("Saved " + count + " words to snapshot: " + file.getName());
+            } else {
+                showOutput("Error saving dictionary snapshot!");
+            }
+        }
+    }
+
     private void saveGeneratedSentences(String sentences) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Generated Sentences");
@@ -223,6 +312,29 @@ public class Main extends Application {
         resultArea.setEditable(false);
         resultArea.setPrefHeight(200);
 
+        // Type-ahead suggestions for English searches
+        ListView<String> suggestions = new ListView<>();
+        suggestions.setPrefHeight(120);
+        searchField.textProperty().addListener((obs, oldText, newText) -> {
+            String prefix = newText.trim();
+            suggestions.getItems().clear();
+            if (!englishRadio.isSelected() || prefix.isEmpty()) {
+                return;
+            }
+            for (Word word : dictionary.complete(prefix, 10)) {
+                suggestions.getItems().add(word.getWord());
+            }
+        });
+        suggestions.setOnMouseClicked(e -> {
+            String selected = suggestions.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                searchField.setText(selected);
+                searchButton.fire();
+            }
+        });
+        searchGroup.selectedToggleProperty().addListener((obs, oldToggle, newToggle) ->
+                suggestions.getItems().clear());
+
         searchButton.setOnAction(e -> {
             String searchText = searchField.getText().trim();
             if (searchText.isEmpty()) {
@@ -246,6 +358,20 @@ public class Main extends Application {
                                 "Type: " + result.getType()
                 );
                 showOutput("Word found!");
+            } else if (englishRadio.isSelected()) {
+                List<Word> close = dictionary.suggest(searchText, 2, 5);
+                if (close.isEmpty()) {
+                    resultArea.setText("Word not found!");
+                } else {
+                    StringBuilder text = new StringBuilder("Word not found! Did you mean:\n");
+                    suggestions.getItems().clear();
+                    for (Word word : close) {
+                        text.append("  ").append(word.getWord()).append("\n");
+                        suggestions.getItems().add(word.getWord());
+                    }
+                    resultArea.setText(text.toString());
+                }
+                showOutput("Word not found!");
             } else {
                 resultArea.setText("Word not found!");
                 showOutput("Word not found!");
@@ -257,6 +383,7 @@ public class Main extends Application {
                 new HBox(10, englishRadio, arabicRadio),
                 new Label("Enter word:"),
                 searchField,
+                suggestions,
                 searchButton,
                 new Label("Result:"),
                 resultArea
@@ -473,7 +600,49 @@ public class Main extends Application {
             showOutput("Translation fields cleared!");
         });
 
-        buttonBox.getChildren().addAll(translateButton, clearButton);
+        // Whole documents are streamed file to file on a background thread
+        Button translateFileButton = new Button("Translate File");
+        translateFileButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Select Document to Translate");
+            fileChooser.getExtensionFilters().add(
+                    new FileChooser.ExtensionFilter("Text Files", "*.txt")
+            );
+            File input = fileChooser.showOpenDialog(primaryStage);
+            if (input == null) {
+                return;
+            }
+
+            fileChooser.setTitle("Save Translation");
+            File output = fileChooser.showSaveDialog(primaryStage);
+            if (output == null) {
+                return;
+            }
+
+            boolean toArabic = engToArabic.isSelected();
+            translateFileButton.setDisable(true);
+            showOutput("Translating " + input.getName() + "...");
+
+            Thread worker = new Thread(() -> {
+                String message;
+                try {
+                    DocumentTranslator translator = new DocumentTranslator(dictionary, toArabic);
+                    DocumentTranslator.Result result = translator.translate(input.getPath(), output.getPath());
+                    message = "Translated " + input.getName() + ": " + result;
+                } catch (IOException ex) {
+                    message = "Error translating file: " + ex.getMessage();
+                }
+                String done = message;
+                Platform.runLater(() -> {
+                    showOutput(done);
+                    translateFileButton.setDisable(false);
+                });
+            }, "document-translation");
+            worker.setDaemon(true);
+            worker.start();
+        });
+
+        buttonBox.getChildren().addAll(translateButton, translateFileButton, clearButton);
 
         vbox.getChildren().addAll(
                 new Label("Translation Direction:"),
@@ -586,40 +755,25 @@ public class Main extends Application {
         statsArea.setPrefHeight(300);
 
         refreshButton.setOnAction(e -> {
-            StringBuilder stats = new StringBuilder();
-
-            stats.append("=== General Statistics ===\n");
-            stats.append("Total words: ").append(dictionary.getTotalWords()).append("\n\n");
-
-            stats.append("=== Words per Letter ===\n");
-            List<DLinkedList.LetterCount> letterCounts = dictionary.getLetterCounts();
-            for (DLinkedList.LetterCount lc : letterCounts) {
-                if (lc.getCount() > 0) {
-                    stats.append(lc.getLetter()).append(": ").append(lc.getCount()).append(" words\n");
-                }
-            }
-            stats.append("\n");
-
-            stats.append("=== Words per Type ===\n");
-            List<DLinkedList.TypeCount> typeCounts = dictionary.getTypeCounts();
-            for (DLinkedList.TypeCount tc : typeCounts) {
-                stats.append(tc.getType()).append(": ").append(tc.getCount()).append(" words\n");
-            }
-            stats.append("\n");
+            statsArea.setText(buildStatistics());
+            showOutput("Statistics refreshed!");
+        });
 
-            stats.append("=== AVL Tree Heights ===\n");
-            List<DLinkedList.LetterHeight> treeHeights = dictionary.getTreeHeights();
-            for (DLinkedList.LetterHeight th : treeHeights) {
-                stats.append("Letter ").append(th.getLetter())
-                        .append(": height = ").append(th.getHeight()).append("\n");
+        // Statistics are O(26) to compute, so polling every second is cheap
+        CheckBox autoRefresh = new CheckBox("Refresh every second");
+        Timeline poller = new Timeline(new KeyFrame(Duration.seconds(1),
+                e -> statsArea.setText(buildStatistics())));
+        poller.setCycleCount(Animation.INDEFINITE);
+        autoRefresh.setOnAction(e -> {
+            if (autoRefresh.isSelected()) {
+                poller.play();
+            } else {
+                poller.stop();
             }
-
-            statsArea.setText(stats.toString());
-            showOutput("Statistics refreshed!");
         });
 
         vbox.getChildren().addAll(
-                refreshButton,
+                new HBox(10, refreshButton, autoRefresh),
                 new Label("Statistics:"),
                 statsArea
         );
@@ -628,6 +782,67 @@ public class Main extends Application {
         return tab;
     }
 
+    private String buildStatistics() {
+        StringBuilder stats = new StringBuilder();
+
+        stats.append("=== General Statistics ===\n");
+        stats.append("Total words: ").append(dictionary.getTotalWords()).append("\n");
+
+        List<DLinkedList.BucketStats> buckets = dictionary.getBucketStats();
+        long totalBytes = 0;
+        long totalDepth = 0;
+        int maxDepth = 0;
+        int[] balance = null;
+        // A B+ tree has no balance factors and its depths count levels
+        boolean levels = false;
+        for (DLinkedList.BucketStats bs : buckets) {
+            totalBytes += bs.getBytes();
+            totalDepth += Math.round(bs.getAverageDepth() * bs.getCount());
+            maxDepth = Math.max(maxDepth, bs.getHeight());
+            int[] histogram = bs.getBalanceHistogram();
+            if (histogram == null) {
+                levels = true;
+                continue;
+            }
+            if (balance == null) {
+                balance = new int[3];
+            }
+            for (int i = 0; i < 3; i++) {
+                balance[i] += histogram[i];
+            }
+        }
+        String unit = levels ? " (levels)" : " (nodes)";
+        int total = dictionary.getTotalWords();
+        stats.append("Data size: ").append(totalBytes / 1024).append(" KB\n");
+        stats.append(String.format("Average search depth%s: %.2f%n", unit,
+                total == 0 ? 0.0 : (double) totalDepth / total));
+        stats.append("Maximum search depth").append(unit).append(": ").append(maxDepth).append("\n");
+        if (balance != null) {
+            stats.append("Balance factors: -1 = ").append(balance[0])
+                    .append(", 0 = ").append(balance[1])
+                    .append(", +1 = ").append(balance[2]).append("\n");
+        }
+        stats.append("\n");
+
+        stats.append("=== Words per Type ===\n");
+        List<DLinkedList.TypeCount> typeCounts = dictionary.getTypeCounts();
+        for (DLinkedList.TypeCount tc : typeCounts) {
+            stats.append(tc.getType()).append(": ").append(tc.getCount()).append(" words\n");
+        }
+        stats.append("\n");
+
+        stats.append("=== Buckets ===\n");
+        for (DLinkedList.BucketStats bs : buckets) {
+            if (bs.getCount() > 0) {
+                String bucketUnit = bs.getBalanceHistogram() == null ? "levels" : "nodes";
+                stats.append(String.format("%c: %d words, height %d %s, avg depth %.2f, %d KB%n",
+                        bs.getLetter(), bs.getCount(), bs.getHeight(), bucketUnit,
+                        bs.getAverageDepth(), bs.getBytes() / 1024));
+            }
+        }
+        return stats.toString();
+    }
+
     private void showOutput(String message) {
         outputArea.appendText(message + "\n");
         outputArea.setScrollTop(Double.MAX_VALUE);
@@ -0,0 +1,525 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
+
+// Letter bucket whose words live off the heap in an OffHeapWordStore.
+//
+// The tree is the same int-id AVL tree as ArrayAVLTree, but a node id is
+// also the store slot of its word, so the heap holds only the int arrays
+// and the store's offset tables. Searches encode the query once and
+// compare it with the stored UTF-8 key bytes in place; a Word object is
+// decoded only for a result the caller asked for, and each call returns a
+// new one. Deleted ids and their slots are reused; when the bytes left
+// behind by deletes and updates outgrow the live ones the store is
+// compacted.
+//
+// There is no persistent mode; the caller locks as for ArrayAVLTree.
+public class OffHeapIndex implements OrderedIndex<Word> {
+    private static final int NIL = 0; // id 0 is a sentinel with height and size 0
+    // Garbage below this is never worth a compaction
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+
+    private OffHeapWordStore store;
+    private int[] left;
+    private int[] right;
+    private int[] height;
+    private int[] size;
+    private byte[] balance;  // balance factor each node was last counted with
+    private char[] types;    // Word type code of each node
+    private int root = NIL;
+    private int next = 1;   // first id never handed out
+    private int free = NIL; // head of the free list
+    // Running totals behind the statistics, kept in step by update()
+    private long sizeTotal; // sum of all subtree sizes = total search cost
+    private int leftHeavy;
+    private int rightHeavy;
+    // Words per Word type code, so type queries never read the store
+    private int[] typeCounts;
+
+    public OffHeapIndex() {
+        this(16);
+    }
+
+    public OffHeapIndex(int capacity) {
+        allocate(capacity + 1);
+    }
+
+    private void allocate(int capacity) {
+        store = new OffHeapWordStore(capacity);
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new int[capacity];
+        size = new int[capacity];
+        balance = new byte[capacity];
+        types = new char[capacity];
+        sizeTotal = 0;
+        leftHeavy = 0;
+        rightHeavy = 0;
+        typeCounts = new int[8];
+    }
+
+    public boolean isPersistent() {
+        return false;
+    }
+
+    public OrderedIndex<Word> snapshot() {
+        throw new IllegalStateException("Snapshots need a persistent tree");
+    }
+
+    private int newNode(Word word) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (next == left.length) {
+                grow();
+            }
+            node = next++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 1;
+        size[node] = 1;
+        sizeTotal++;
+        store.put(node, word);
+        setType(node, word.getTypeCode());
+        return node;
+    }
+
+    // Return the id to the free list; its slot must already be empty
+    private void release(int node) {
+        sizeTotal -= size[node];
+        setBalance(node, 0);
+        right[node] = NIL;
+        height[node] = 0;
+        size[node] = 0;
+        left[node] = free;
+        free = node;
+    }
+
+    private void grow() {
+        int capacity = left.length + (left.length >> 1) + 1;
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+        size = Arrays.copyOf(size, capacity);
+        balance = Arrays.copyOf(balance, capacity);
+        types = Arrays.copyOf(types, capacity);
+        store.ensureCapacity(capacity);
+    }
+
+    private void update(int node) {
+        int oldSize = size[node];
+        height[node] = Math.max(height[left[node]], height[right[node]]) + 1;
+        size[node] = size[left[node]] + size[right[node]] + 1;
+        sizeTotal += size[node] - oldSize;
+        setBalance(node, getBalance(node));
+    }
+
+    private void setBalance(int node, int factor) {
+        int old = balance[node];
+        if (old > 0) leftHeavy--;
+        else if (old < 0) rightHeavy--;
+        if (factor > 0) leftHeavy++;
+        else if (factor < 0) rightHeavy++;
+        balance[node] = (byte) factor;
+    }
+
+    // Record the type of a newly stored word
+    private void setType(int node, char code) {
+        if (code >= typeCounts.length) {
+            typeCounts = Arrays.copyOf(typeCounts, Math.max(code + 1, typeCounts.length * 2));
+        }
+        types[node] = code;
+        typeCounts[code]++;
+    }
+
+    private int getBalance(int node) {
+        return height[left[node]] - height[right[node]];
+    }
+
+    private int rotateRight(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        right[x] = y;
+        update(y);
+        update(x);
+        return x;
+    }
+
+    private int rotateLeft(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        left[y] = x;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private int rebalance(int node) {
+        update(node);
+        int balance = getBalance(node);
+
+        if (balance > 1) {
+            if (getBalance(left[node]) < 0) {
+                left[node] = rotateLeft(left[node]);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (getBalance(right[node]) > 0) {
+                right[node] = rotateRight(right[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    public boolean insertIfAbsent(Word word) {
+        int before = size[root];
+        root = insert(root, OffHeapWordStore.utf8(word.getKey()), word);
+        return size[root] > before;
+    }
+
+    private int insert(int node, byte[] key, Word word) {
+        if (node == NIL) {
+            return newNode(word);
+        }
+
+        // The arrays may grow during the call, so store the child only after it
+        int cmp = store.compareKey(key, node);
+        if (cmp < 0) {
+            int child = insert(left[node], key, word);
+            left[node] = child;
+        } else if (cmp > 0) {
+            int child = insert(right[node], key, word);
+            right[node] = child;
+        } else {
+            return node; // Duplicate not allowed
+        }
+        return rebalance(node);
+    }
+
+    public Word computeIfPresent(Word key, UnaryOperator<Word> remapping) {
+        int node = find(OffHeapWordStore.utf8(key.getKey()));
+        if (node == NIL) {
+            return null;
+        }
+        Word updated = remapping.apply(store.get(node));
+        if (updated == null || updated.compareTo(key) != 0) {
+            throw new IllegalArgumentException("Remapping must keep the same key");
+        }
+        typeCounts[types[node]]--;
+        store.put(node, updated);
+        setType(node, updated.getTypeCode());
+        compactIfWasteful();
+        return updated;
+    }
+
+    // Replace the contents with a perfectly balanced tree built in O(n).
+    // The list must be sorted in strictly ascending order.
+    public void buildFromSorted(List<Word> sorted) {
+        int n = sorted.size();
+        allocate(n + 1);
+        next = n + 1;
+        free = NIL;
+        root = build(sorted, 0, n - 1);
+    }
+
+    // Element i of the list becomes node i + 1, so the store is in key order
+    private int build(List<Word> sorted, int lo, int hi) {
+        if (lo > hi) return NIL;
+
+        int mid = (lo + hi) >>> 1;
+        int node = mid + 1;
+        int leftChild = build(sorted, lo, mid - 1);
+        store.put(node, sorted.get(mid));
+        setType(node, sorted.get(mid).getTypeCode());
+        left[node] = leftChild;
+        right[node] = build(sorted, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    public Word search(Word word) {
+        int node = find(OffHeapWordStore.utf8(word.getKey()));
+        return node == NIL ? null : store.get(node);
+    }
+
+    private int find(byte[] key) {
+        int current = root;
+        while (current != NIL) {
+            int cmp = store.compareKey(key, current);
+
+            if (cmp == 0) {
+                return current;
+            }
+            current = cmp < 0 ? left[current] : right[current];
+        }
+        return NIL;
+    }
+
+    // English keys are folded and compared as bytes; any other comparator
+    // needs the stored words decoded along the search path
+    public <K> Word search(K key, KeyComparator<K, Word> comparator) {
+        if ((comparator == Word.KEY_ORDER || comparator == Word.ENGLISH_KEY) && key instanceof CharSequence) {
+            int node = find(OffHeapWordStore.utf8(Word.foldKey((CharSequence) key)));
+            return node == NIL ? null : store.get(node);
+        }
+
+        int current = root;
+        while (current != NIL) {
+            Word word = store.get(current);
+            int cmp = comparator.compare(key, word);
+
+            if (cmp == 0) {
+                return word;
+            }
+            current = cmp < 0 ? left[current] : right[current];
+        }
+        return null;
+    }
+
+    public void delete(Word word) {
+        root = delete(root, OffHeapWordStore.utf8(word.getKey()));
+        compactIfWasteful();
+    }
+
+    private int delete(int node, byte[] key) {
+        if (node == NIL) return NIL;
+
+        int cmp = store.compareKey(key, node);
+        if (cmp < 0) {
+            left[node] = delete(left[node], key);
+        } else if (cmp > 0) {
+            right[node] = delete(right[node], key);
+        } else if (left[node] == NIL || right[node] == NIL) {
+            int child = left[node] != NIL ? left[node] : right[node];
+            typeCounts[types[node]]--;
+            store.clear(node);
+            release(node);
+            return child;
+        } else {
+            // Two children: the successor's record moves into this slot
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            typeCounts[types[node]]--;
+            store.clear(node);
+            store.move(successor, node);
+            types[node] = types[successor];
+            right[node] = removeMin(right[node]);
+        }
+        return rebalance(node);
+    }
+
+    // Unlink the smallest node below node; its slot has already been moved
+    private int removeMin(int node) {
+        if (left[node] == NIL) {
+            int child = right[node];
+            release(node);
+            return child;
+        }
+        left[node] = removeMin(left[node]);
+        return rebalance(node);
+    }
+
+    private void compactIfWasteful() {
+        long garbage = store.getGarbageBytes();
+        if (garbage > COMPACT_MIN_BYTES && garbage > store.getLiveBytes()) {
+            store.compact(next);
+        }
+    }
+
+    public List<Word> getInOrder() {
+        List<Word> result = new ArrayList<>(size[root]);
+        new InOrderIterator().forEachRemaining(result::add);
+        return result;
+    }
+
+    @Override
+    public Iterator<Word> iterator() {
+        return new InOrderIterator();
+    }
+
+    @Override
+    public Spliterator<Word> spliterator() {
+        return Spliterators.spliterator(iterator(), size[root],
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public Word select(int k) {
+        if (k < 0 || k >= size[root]) {
+            return null;
+        }
+
+        int current = root;
+        while (current != NIL) {
+            int leftSize = size[left[current]];
+
+            if (k < leftSize) {
+                current = left[current];
+            } else if (k == leftSize) {
+                return store.get(current);
+            } else {
+                k -= leftSize + 1;
+                current = right[current];
+            }
+        }
+        return null;
+    }
+
+    // Words whose key starts with the folded prefix; keys are compared in
+    // place and only the matches are decoded
+    public List<Word> prefix(String p, int limit) {
+        List<Word> result = new ArrayList<>();
+        collectPrefix(root, OffHeapWordStore.utf8(Word.foldKey(p)), limit, result);
+        return result;
+    }
+
+    // Returns false once past the prefix or the limit is reached
+    private boolean collectPrefix(int node, byte[] prefix, int limit, List<Word> result) {
+        if (node == NIL) return true;
+
+        int cmp = store.compareKey(prefix, node);
+        if (cmp < 0 && !collectPrefix(left[node], prefix, limit, result)) {
+            return false;
+        }
+        if (cmp <= 0) {
+            if (result.size() >= limit || !store.keyStartsWith(prefix, node)) {
+                return false;
+            }
+            result.add(store.get(node));
+        }
+        return collectPrefix(right[node], prefix, limit, result);
+    }
+
+    // Keys are compared in place; only the returned words are decoded
+    public List<Word> nextAfter(Word after, int limit) {
+        List<Word> result = new ArrayList<>(Math.min(limit, size[root]));
+        collectAfter(root, after == null ? null : OffHeapWordStore.utf8(after.getKey()), limit, result);
+        return result;
+    }
+
+    // Returns false once the limit is reached
+    private boolean collectAfter(int node, byte[] after, int limit, List<Word> result) {
+        if (node == NIL) return true;
+
+        if (after == null || store.compareKey(after, node) < 0) {
+            if (!collectAfter(left[node], after, limit, result) || result.size() >= limit) {
+                return false;
+            }
+            result.add(store.get(node));
+        }
+        return collectAfter(right[node], after, limit, result);
+    }
+
+    // Words whose normalized Arabic meaning is arabicKey, via the store's hash table
+    public List<Word> searchArabicKey(String arabicKey, int limit) {
+        List<Word> result = new ArrayList<>();
+        for (int slot : store.findArabic(arabicKey, limit)) {
+            result.add(store.get(slot));
+        }
+        return result;
+    }
+
+    // Number of words of a type (ignoring case), from the counts per code
+    public int countType(String type) {
+        int count = 0;
+        for (int code = 0; code < typeCounts.length; code++) {
+            if (typeCounts[code] > 0 && Word.typeName(code).equalsIgnoreCase(type)) {
+                count += typeCounts[code];
+            }
+        }
+        return count;
+    }
+
+    // The k-th word of a type in slot order, or null; compares type codes only
+    public Word typeAt(String type, int k) {
+        boolean[] match = new boolean[typeCounts.length];
+        for (int code = 0; code < typeCounts.length; code++) {
+            match[code] = typeCounts[code] > 0 && Word.typeName(code).equalsIgnoreCase(type);
+        }
+        for (int node = 1; node < next; node++) {
+            if (size[node] > 0 && match[types[node]] && k-- == 0) {
+                return store.get(node);
+            }
+        }
+        return null;
+    }
+
+    // Words per Word type code
+    public int[] getTypeCounts() {
+        return typeCounts.clone();
+    }
+
+    // Off-heap bytes: {reserved, held by stored words, left behind by edits}
+    public long[] getOffHeapBytes() {
+        return new long[] {store.getReservedBytes(), store.getLiveBytes(), store.getGarbageBytes()};
+    }
+
+    public int getSize() {
+        return size[root];
+    }
+
+    public int getTreeHeight() {
+        return height[root];
+    }
+
+    // Sizes add up to the total search cost; see ArrayAVLTree. O(1)
+    public double getAverageSearchDepth() {
+        if (root == NIL) return 0;
+        return (double) sizeTotal / size[root];
+    }
+
+    // O(1) from the running totals
+    public int[] getBalanceHistogram() {
+        return new int[] {rightHeavy, size[root] - leftHeavy - rightHeavy, leftHeavy};
+    }
+
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    // In-order walk that decodes each word as it is reached
+    private class InOrderIterator implements Iterator<Word> {
+        private int[] stack = new int[Math.max(1, height[root])];
+        private int depth;
+
+        InOrderIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(int node) {
+            while (node != NIL) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                node = left[node];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public Word next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            int node = stack[--depth];
+            pushLeft(right[node]);
+            return store.get(node);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Word fields kept outside the Java heap as UTF-8, one column per field.
+//
+// A record lives in an int slot chosen by the caller. Each field has an
+// offset table, fields[f][slot], holding one packed long:
+//   used (1 bit) | segment (15 bits) | offset in segment (24 bits) | length (24 bits)
+// The bytes themselves sit in direct ByteBuffer segments, growing from
+// 64 KB up to 16 MB each, that are only appended to; overwriting or clearing a slot leaves the old bytes
+// behind as garbage until compact(). The case-folded key and the
+// normalized Arabic meaning are stored too, so lookups compare bytes in
+// place; when either equals its source field it shares those bytes.
+//
+// Normalized Arabic meanings are also indexed in an open-addressing int
+// table, so Arabic lookups need no Word objects either.
+//
+// Not thread-safe for writers. Readers only use absolute gets, so any
+// number of them may run while no writer does.
+public class OffHeapWordStore {
+    public static final int WORD = 0;
+    public static final int ENGLISH = 1;
+    public static final int ARABIC = 2;
+    public static final int EXAMPLE = 3;
+    public static final int TYPE = 4;
+    public static final int KEY = 5;
+    public static final int ARABIC_KEY = 6;
+    private static final int FIELDS = 7;
+
+    private static final int OFFSET_BITS = 24;
+    private static final int FIRST_SEGMENT_SIZE = 1 << 16;
+    private static final int SEGMENT_SIZE = 1 << OFFSET_BITS;
+    private static final int MAX_LENGTH = (1 << OFFSET_BITS) - 1;
+    private static final int MAX_SEGMENTS = 1 << 15; // the top bit marks used TYPE entries
+
+    private static final int EMPTY = 0;    // arabic table: never used
+    private static final int REMOVED = -1; // arabic table: slot was cleared
+
+    private final long[][] fields = new long[FIELDS][];
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer last;  // segment being filled
+    private int filled;       // bytes used in it
+    private long liveBytes;
+    private long garbageBytes;
+    // Slot + 1 for every stored record, hashed by normalized Arabic meaning
+    private int[] arabicTable = new int[16];
+    private int arabicUsed; // entries plus REMOVED markers
+
+    public OffHeapWordStore() {
+        this(16);
+    }
+
+    public OffHeapWordStore(int slots) {
+        for (int f = 0; f < FIELDS; f++) {
+            fields[f] = new long[slots];
+        }
+    }
+
+    // Room for slots 0 .. slots - 1
+    public void ensureCapacity(int slots) {
+        if (slots > fields[0].length) {
+            int capacity = Math.max(slots, fields[0].length + (fields[0].length >> 1));
+            for (int f = 0; f < FIELDS; f++) {
+                fields[f] = Arrays.copyOf(fields[f], capacity);
+            }
+        }
+    }
+
+    // Store word in slot, replacing whatever was there
+    public void put(int slot, Word word) {
+        if (fields[TYPE][slot] != 0) {
+            clear(slot);
+        }
+
+        byte[] text = utf8(word.getWord());
+        byte[] arabic = utf8(word.getArabicMeaning());
+        fields[WORD][slot] = append(text);
+        fields[ENGLISH][slot] = append(utf8(word.getEnglishMeaning()));
+        fields[ARABIC][slot] = append(arabic);
+        fields[EXAMPLE][slot] = append(utf8(word.getExample()));
+        // A set TYPE entry marks the slot as used, so it is never 0
+        fields[TYPE][slot] = append(utf8(word.getType())) | 1L << 63;
+
+        byte[] key = utf8(word.getKey());
+        fields[KEY][slot] = Arrays.equals(key, text) ? fields[WORD][slot] : append(key);
+        byte[] arabicKey = utf8(word.getArabicKey());
+        fields[ARABIC_KEY][slot] = Arrays.equals(arabicKey, arabic) ? fields[ARABIC][slot] : append(arabicKey);
+
+        liveBytes += recordBytes(slot);
+        addArabic(slot, arabicKey);
+    }
+
+    // Drop the record in slot; its bytes become garbage
+    public void clear(int slot) {
+        if (fields[TYPE][slot] == 0) {
+            return;
+        }
+        removeArabic(slot);
+        long bytes = recordBytes(slot);
+        liveBytes -= bytes;
+        garbageBytes += bytes;
+        for (int f = 0; f < FIELDS; f++) {
+            fields[f][slot] = 0;
+        }
+    }
+
+    // Move the record in from to the empty slot to; no bytes are copied
+    public void move(int from, int to) {
+        removeArabic(from);
+        for (int f = 0; f < FIELDS; f++) {
+            fields[f][to] = fields[f][from];
+            fields[f][from] = 0;
+        }
+        addArabic(to, null);
+    }
+
+    public boolean isUsed(int slot) {
+        return fields[TYPE][slot] != 0;
+    }
+
+    // A new Word holding the record in slot
+    public Word get(int slot) {
+        return new Word(getString(WORD, slot), getString(ENGLISH, slot), getString(ARABIC, slot),
+                getString(EXAMPLE, slot), getString(TYPE, slot));
+    }
+
+    public String getString(int field, int slot) {
+        long address = fields[field][slot];
+        int length = length(address);
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        segments.get(segment(address)).get(offset(address), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Compare key against the stored key of slot, in String.compareTo order
+    public int compareKey(byte[] key, int slot) {
+        long address = fields[KEY][slot];
+        ByteBuffer buffer = segments.get(segment(address));
+        int offset = offset(address);
+        int length = length(address);
+
+        int n = Math.min(key.length, length);
+        for (int i = 0; i < n; i++) {
+            int a = key[i] & 0xFF;
+            int b = buffer.get(offset + i) & 0xFF;
+            if (a != b) {
+                // UTF-8 sorts by code point, String by UTF-16 unit: the two
+                // only disagree between U+E000..U+FFFF (lead byte 0xEE or
+                // 0xEF) and supplementary characters (lead byte 0xF0..0xF4)
+                if (a >= 0xEE && b >= 0xEE && (a >= 0xF0) != (b >= 0xF0)) {
+                    return a >= 0xF0 ? -1 : 1;
+                }
+                return a - b;
+            }
+        }
+        return key.length - length;
+    }
+
+    // True if the stored key of slot starts with prefix
+    public boolean keyStartsWith(byte[] prefix, int slot) {
+        long address = fields[KEY][slot];
+        if (length(address) < prefix.length) {
+            return false;
+        }
+        ByteBuffer buffer = segments.get(segment(address));
+        int offset = offset(address);
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Slots whose normalized Arabic meaning equals arabicKey, at most limit
+    public List<Integer> findArabic(String arabicKey, int limit) {
+        byte[] key = utf8(arabicKey);
+        List<Integer> slots = new ArrayList<>();
+        int mask = arabicTable.length - 1;
+        for (int i = hash(key) & mask; arabicTable[i] != EMPTY && slots.size() < limit; i = (i + 1) & mask) {
+            int slot = arabicTable[i] - 1;
+            if (slot >= 0 && fieldEquals(ARABIC_KEY, slot, key)) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    // Bytes held by stored records, and bytes left behind by replaced ones
+    public long getLiveBytes() { return liveBytes; }
+    public long getGarbageBytes() { return garbageBytes; }
+
+    // Off-heap memory reserved by the segments
+    public long getReservedBytes() {
+        long bytes = 0;
+        for (ByteBuffer segment : segments) {
+            bytes += segment.capacity();
+        }
+        return bytes;
+    }
+
+    // Copy the records of slots 0 .. slots - 1 into new segments and
+    // release the old ones, dropping all garbage
+    public void compact(int slots) {
+        List<ByteBuffer> old = new ArrayList<>(segments);
+        segments.clear();
+        last = null;
+        filled = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+
+        for (int slot = 0; slot < slots; slot++) {
+            if (fields[TYPE][slot] == 0) {
+                continue;
+            }
+            for (int f = 0; f < FIELDS; f++) {
+                long address = fields[f][slot];
+                if ((f == KEY && address == fields[WORD][slot])
+                        || (f == ARABIC_KEY && address == fields[ARABIC][slot])) {
+                    continue; // shared, updated along with its source
+                }
+                byte[] bytes = new byte[length(address)];
+                old.get(segment(address)).get(offset(address), bytes);
+                long moved = append(bytes) | (address & 1L << 63);
+                if (f == WORD && fields[KEY][slot] == address) {
+                    fields[KEY][slot] = moved;
+                }
+                if (f == ARABIC && fields[ARABIC_KEY][slot] == address) {
+                    fields[ARABIC_KEY][slot] = moved;
+                }
+                fields[f][slot] = moved;
+            }
+            liveBytes += recordBytes(slot);
+        }
+    }
+
+    private long append(byte[] bytes) {
+        if (bytes.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Field longer than " + MAX_LENGTH + " bytes");
+        }
+        if (last == null || filled + bytes.length > last.capacity()) {
+            if (segments.size() == MAX_SEGMENTS) {
+                throw new IllegalStateException("Off-heap word store is full");
+            }
+            // Each segment doubles the previous one, so small buckets stay small
+            int capacity = last == null ? FIRST_SEGMENT_SIZE : Math.min(SEGMENT_SIZE, last.capacity() * 2);
+            last = ByteBuffer.allocateDirect(Math.max(capacity, bytes.length));
+            segments.add(last);
+            filled = 0;
+        }
+        int segment = segments.size() - 1;
+        last.put(filled, bytes);
+        long address = (long) segment << (2 * OFFSET_BITS) | (long) filled << OFFSET_BITS | bytes.length;
+        filled += bytes.length;
+        return address;
+    }
+
+    private long recordBytes(int slot) {
+        long bytes = 0;
+        for (int f = 0; f < FIELDS; f++) {
+            if ((f == KEY && fields[KEY][slot] == fields[WORD][slot])
+                    || (f == ARABIC_KEY && fields[ARABIC_KEY][slot] == fields[ARABIC][slot])) {
+                continue;
+            }
+            bytes += length(fields[f][slot]);
+        }
+        return bytes;
+    }
+
+    private boolean fieldEquals(int field, int slot, byte[] bytes) {
+        long address = fields[field][slot];
+        if (length(address) != bytes.length) {
+            return false;
+        }
+        ByteBuffer buffer = segments.get(segment(address));
+        int offset = offset(address);
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // key is the slot's normalized Arabic meaning, read back when null
+    private void addArabic(int slot, byte[] key) {
+        if ((arabicUsed + 1) * 2 > arabicTable.length) {
+            rehashArabic();
+        }
+        if (key == null) {
+            key = utf8(getString(ARABIC_KEY, slot));
+        }
+        int mask = arabicTable.length - 1;
+        int i = hash(key) & mask;
+        while (arabicTable[i] > EMPTY) {
+            i = (i + 1) & mask;
+        }
+        if (arabicTable[i] == EMPTY) {
+            arabicUsed++;
+        }
+        arabicTable[i] = slot + 1;
+    }
+
+    private void removeArabic(int slot) {
+        byte[] key = utf8(getString(ARABIC_KEY, slot));
+        int mask = arabicTable.length - 1;
+        for (int i = hash(key) & mask; arabicTable[i] != EMPTY; i = (i + 1) & mask) {
+            if (arabicTable[i] == slot + 1) {
+                arabicTable[i] = REMOVED;
+                return;
+            }
+        }
+    }
+
+    // Grow, or just drop the REMOVED markers when there are enough of them
+    private void rehashArabic() {
+        int[] old = arabicTable;
+        int live = 0;
+        for (int entry : old) {
+            if (entry > EMPTY) {
+                live++;
+            }
+        }
+        int capacity = old.length;
+        while ((live + 1) * 4 > capacity) {
+            capacity *= 2;
+        }
+        arabicTable = new int[capacity];
+        arabicUsed = 0;
+        for (int entry : old) {
+            if (entry > EMPTY) {
+                addArabic(entry - 1, null);
+            }
+        }
+    }
+
+    private int hash(byte[] key) {
+        int h = 0x811C9DC5;
+        for (byte b : key) {
+            h = (h ^ b) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int segment(long address) {
+        return (int) (address >>> (2 * OFFSET_BITS)) & (MAX_SEGMENTS - 1);
+    }
+
+    private static int offset(long address) {
+        return (int) (address >>> OFFSET_BITS) & MAX_LENGTH;
+    }
+
+    private static int length(long address) {
+        return (int) address & MAX_LENGTH;
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+// Sorted set of elements behind each letter bucket. DLinkedList only talks
+// to this interface, so a bucket can use whichever implementation suits the
+// dictionary:
+//   AVL       - AVLTree, one object per node; the only one with a persistent mode
+//   ARRAY_AVL - ArrayAVLTree, nodes are int ids into parallel arrays
+//   OFF_HEAP  - OffHeapIndex, words kept as UTF-8 outside the heap (Word only)
+//   BPLUS     - BPlusTree, wide nodes and linked leaves for read-heavy use
+//
+// Implementations are not thread-safe; the caller locks around them.
+public interface OrderedIndex<T extends Comparable<T>> extends Iterable<T> {
+
+    enum Backend { AVL, ARRAY_AVL, OFF_HEAP, BPLUS }
+
+    // New empty index. Persistent indexes are only available as AVL.
+    @SuppressWarnings("unchecked")
+    static <T extends Comparable<T>> OrderedIndex<T> create(Backend backend, boolean persistent) {
+        if (persistent && backend != Backend.AVL) {
+            throw new IllegalArgumentException(backend + " has no persistent mode");
+        }
+        switch (backend) {
+            case ARRAY_AVL:
+                return new ArrayAVLTree<>();
+            case OFF_HEAP:
+                return (OrderedIndex<T>) new OffHeapIndex();
+            case BPLUS:
+                return new BPlusTree<>();
+            default:
+                return new AVLTree<>(persistent);
+        }
+    }
+
+    // Compares a lookup key against a stored element
+    interface KeyComparator<K, T> {
+        int compare(K key, T element);
+    }
+
+    boolean isPersistent();
+
+    // Frozen view of the current contents. Persistent indexes only.
+    OrderedIndex<T> snapshot();
+
+    // Insert only if no equal element exists; returns true if inserted
+    boolean insertIfAbsent(T data);
+
+    // Replace the element equal to key with remapping(element), in place.
+    // The result must keep the same key. Returns it, or null if key is absent.
+    T computeIfPresent(T key, UnaryOperator<T> remapping);
+
+    // Replace the contents; the list must be sorted in strictly ascending order
+    void buildFromSorted(List<T> sorted);
+
+    T search(T data);
+
+    // Search by a key that is not itself an element. The comparator must
+    // order keys the same way the elements order themselves.
+    <K> T search(K key, KeyComparator<K, T> comparator);
+
+    void delete(T data);
+
+    // All elements in sorted order
+    List<T> getInOrder();
+
+    // k-th smallest element (0-based), or null if out of range
+    T select(int k);
+
+    // Words starting with p (ignoring case), at most limit of them
+    List<T> prefix(String p, int limit);
+
+    // Up to limit elements greater than after, in order; from the smallest
+    // when after is null. Lets a caller walk the index in short locked steps.
+    List<T> nextAfter(T after, int limit);
+
+    int getSize();
+
+    int getTreeHeight();
+
+    // Average depth of a successful search: nodes visited (one comparison
+    // each) in the AVL backends, levels descended in the B+ tree
+    double getAverageSearchDepth();
+
+    // Nodes by balance factor: {-1 (right heavy), 0, +1 (left heavy)}, or
+    // null for an index without balance factors (the B+ tree)
+    int[] getBalanceHistogram();
+
+    boolean isEmpty();
+}
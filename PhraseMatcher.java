@@ -0,0 +1,290 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Aho-Corasick automaton over the dictionary entries whose key has more
+// than one word ("ice cream", "take off").
+//
+// Keys are matched ignoring case, and any run of whitespace in the text or
+// in a key counts as a single space, so a phrase still matches across a line
+// break. find() makes one pass over the text, O(text length + matches),
+// however many phrases there are. Adding or removing a phrase only edits
+// the trie; failure links are rebuilt on the next find().
+//
+// Dictionary keys that differ only in spacing ("ice cream", "ice  cream")
+// share one trie node. The node keeps each of them, told apart by
+// Word.getKey(), and reports the earliest added one that is still there.
+public class PhraseMatcher {
+    private final Node root = new Node(0);
+    private int phrases;
+    private int longest; // longest normalized key, sizes the position ring
+    private boolean dirty;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // True if the key has to be matched as a phrase rather than a single word
+    public static boolean isPhrase(String key) {
+        String trimmed = key.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (Character.isWhitespace(trimmed.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(Word word) {
+        String key = normalize(word.getWord());
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                Node next = node.child(key.charAt(i));
+                if (next == null) {
+                    next = node.addChild(key.charAt(i), new Node(i + 1));
+                }
+                node = next;
+            }
+            if (node.words.length == 0) {
+                phrases++;
+            }
+            node.put(word);
+            longest = Math.max(longest, key.length());
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Word word) {
+        String key = normalize(word.getWord());
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            // Only the entry for this dictionary key; another key that
+            // normalizes to the same phrase keeps the node
+            if (node != null && node.remove(word.getKey()) && node.words.length == 0) {
+                phrases--;
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return phrases == 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every phrase occurrence that starts and ends on a word boundary,
+    // sorted by start and then longest first
+    public List<Match> find(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            if (phrases == 0) {
+                return matches;
+            }
+            if (dirty) {
+                lock.readLock().unlock();
+                lock.writeLock().lock();
+                try {
+                    if (dirty) {
+                        rebuild();
+                    }
+                } finally {
+                    // Downgrade even if rebuild throws, so the outer finally
+                    // releases a read lock this thread really holds
+                    lock.readLock().lock();
+                    lock.writeLock().unlock();
+                }
+            }
+
+            // ring[k % longest] is the text index of normalized character k
+            int[] ring = new int[longest];
+            int k = -1;
+            Node state = root;
+            boolean inSpace = false;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    if (inSpace) {
+                        continue;
+                    }
+                    inSpace = true;
+                    c = ' ';
+                } else {
+                    inSpace = false;
+                    c = fold(c);
+                }
+
+                k++;
+                ring[k % longest] = i;
+                state = step(state, c);
+
+                for (Node out = state.words.length > 0 ? state : state.output; out != null; out = out.output) {
+                    int start = ring[(k - out.depth + 1) % longest];
+                    int end = i + 1;
+                    if ((start == 0 || !Character.isLetter(text.charAt(start - 1)))
+                            && (end == text.length() || !Character.isLetter(text.charAt(end)))) {
+                        matches.add(new Match(start, end, out.words[0]));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort((a, b) -> a.start != b.start ? Integer.compare(a.start, b.start)
+                : Integer.compare(b.end, a.end));
+        return matches;
+    }
+
+    private Node step(Node state, char c) {
+        while (state != root && state.child(c) == null) {
+            state = state.fail;
+        }
+        Node next = state.child(c);
+        return next == null ? root : next;
+    }
+
+    // Breadth-first: a node's failure link is the longest proper suffix of
+    // its key that is also in the trie; output links skip to the nearest
+    // such suffix that ends a phrase
+    private void rebuild() {
+        Deque<Node> queue = new ArrayDeque<>();
+        root.fail = root;
+        root.output = null;
+        for (int i = 0; i < root.count; i++) {
+            Node child = root.next[i];
+            child.fail = root;
+            child.output = null;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.count; i++) {
+                Node child = node.next[i];
+                child.fail = step(node.fail, node.labels[i]);
+                child.output = child.fail.words.length > 0 ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+        dirty = false;
+    }
+
+    // Case folded, whitespace runs collapsed to one space, trimmed
+    private static String normalize(String key) {
+        StringBuilder result = new StringBuilder(key.length());
+        boolean inSpace = false;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inSpace = true;
+                continue;
+            }
+            if (inSpace && result.length() > 0) {
+                result.append(' ');
+            }
+            inSpace = false;
+            result.append(fold(c));
+        }
+        return result.toString();
+    }
+
+    // Same folding String.compareToIgnoreCase uses
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static class Node {
+        private static final Word[] NONE = new Word[0];
+
+        final int depth; // length of the key ending here
+        char[] labels = new char[0];
+        Node[] next = new Node[0];
+        int count;
+        Word[] words = NONE; // phrases ending here, one per dictionary key
+        Node fail;
+        Node output; // nearest phrase on the failure chain
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        Node child(char c) {
+            for (int i = 0; i < count; i++) {
+                if (labels[i] == c) {
+                    return next[i];
+                }
+            }
+            return null;
+        }
+
+        // Adds the word, replacing the entry with the same dictionary key
+        void put(Word word) {
+            for (int i = 0; i < words.length; i++) {
+                if (words[i].getKey().equals(word.getKey())) {
+                    words[i] = word;
+                    return;
+                }
+            }
+            words = Arrays.copyOf(words, words.length + 1);
+            words[words.length - 1] = word;
+        }
+
+        boolean remove(String key) {
+            for (int i = 0; i < words.length; i++) {
+                if (words[i].getKey().equals(key)) {
+                    Word[] rest = Arrays.copyOf(words, words.length - 1);
+                    System.arraycopy(words, i + 1, rest, i, words.length - i - 1);
+                    words = rest.length == 0 ? NONE : rest;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Node addChild(char c, Node child) {
+            if (count == labels.length) {
+                int capacity = count == 0 ? 2 : count * 2;
+                labels = Arrays.copyOf(labels, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            labels[count] = c;
+            next[count] = child;
+            count++;
+            return child;
+        }
+    }
+
+    // Text range [start, end) holding a phrase
+    public static class Match {
+        public int start;
+        public int end;
+        public Word word;
+
+        public Match(int start, int end, Word word) {
+            this.start = start;
+            this.end = end;
+            this.word = word;
+        }
+
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+        public Word getWord() { return word; }
+    }
+}
@@ -0,0 +1,53 @@
+// Self-checking harness for PhraseMatcher behind a Dictionary.
+// Usage: java PhraseMatcherCheck
+// Phrases whose keys differ only in spacing ("ice cream", "ice  cream")
+// share one trie node but are separate dictionary entries. Deleting or
+// updating one must leave the other translatable, in either order.
+// Exits with status 1 on the first violation.
+public class PhraseMatcherCheck {
+
+    public static void main(String[] args) {
+        for (boolean deleteSpaced : new boolean[] {true, false}) {
+            Dictionary dictionary = new Dictionary(true);
+            dictionary.addWord("ice cream", "frozen dessert", "بوظة", "", "Noun");
+            dictionary.addWord("ice  cream", "frozen dessert", "آيس كريم", "", "Noun");
+            String kept = deleteSpaced ? "بوظة" : "آيس كريم";
+
+            expect(dictionary, "I like ice cream", null, "both added");
+            dictionary.deleteWord(deleteSpaced ? "ice  cream" : "ice cream");
+
+            String key = deleteSpaced ? "ice cream" : "ice  cream";
+            if (dictionary.searchEnglish(key) == null) {
+                fail("\"" + key + "\" is gone from the dictionary");
+            }
+            expect(dictionary, "I like ice cream", kept, "one deleted");
+            expect(dictionary, "I like ice\ncream", kept, "one deleted, across a line break");
+
+            dictionary.updateWord(key, "frozen dessert", "مثلجات", "", "Noun");
+            expect(dictionary, "I like ICE CREAM", "مثلجات", "updated");
+
+            dictionary.deleteWord(key);
+            String text = dictionary.translateEnglishToArabic("I like ice cream");
+            if (text.contains("مثلجات") || text.contains("بوظة") || text.contains("آيس كريم")) {
+                fail("both deleted, still translated: " + text);
+            }
+        }
+        System.out.println("PhraseMatcher: phrases differing in spacing OK");
+    }
+
+    // The phrase must be translated, to meaning when it is not null
+    private static void expect(Dictionary dictionary, String text, String meaning, String step) {
+        String translated = dictionary.translateEnglishToArabic(text);
+        if (translated.toLowerCase().contains("cream")) {
+            fail(step + ": phrase left untranslated: " + translated);
+        }
+        if (meaning != null && !translated.contains(meaning)) {
+            fail(step + ": expected " + meaning + " in " + translated);
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
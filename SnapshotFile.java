@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Binary dictionary snapshot, read back with mapped I/O into balanced trees.
+//
+// Layout (big-endian):
+//   header  : int magic, int version, int bucketCount
+//   table   : per bucket -> char letter, int count, long offset
+//   buckets : per word, in sorted order -> 5 x (int length, UTF-8 bytes)
+public class SnapshotFile {
+    public static final int MAGIC = 0x444D5331; // "DMS1"
+    public static final int VERSION = 1;
+    private static final int BUCKETS = 26;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 14;
+
+    // Write every bucket of the list; returns the number of words written.
+    // The file is written beside the target and then moved over it, so a
+    // crash never leaves a half-written snapshot in place.
+    public static int write(DLinkedList.Snapshot list, String filename) throws IOException {
+        Path target = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        int total = 0;
+        char[] letters = new char[BUCKETS];
+        int[] counts = new int[BUCKETS];
+        long[] offsets = new long[BUCKETS];
+
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            long position = HEADER_SIZE + (long) BUCKETS * ENTRY_SIZE;
+            channel.position(position);
+
+            for (int i = 0; i < BUCKETS; i++) {
+                letters[i] = (char) ('A' + i);
+                offsets[i] = position;
+
+                for (Word word : list.getWordsByLetter(letters[i])) {
+                    position += putField(channel, buffer, word.getWord());
+                    position += putField(channel, buffer, word.getEnglishMeaning());
+                    position += putField(channel, buffer, word.getArabicMeaning());
+                    position += putField(channel, buffer, word.getExample());
+                    position += putField(channel, buffer, word.getType());
+                    counts[i]++;
+                }
+                total += counts[i];
+            }
+            flush(channel, buffer);
+
+            // Header and bucket table go last, once offsets are known
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(BUCKETS);
+            for (int i = 0; i < BUCKETS; i++) {
+                buffer.putChar(letters[i]).putInt(counts[i]).putLong(offsets[i]);
+            }
+            buffer.flip();
+            channel.position(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return total;
+    }
+
+    // Read a snapshot; element i of the result holds the sorted words of
+    // letter 'A' + i. Buckets are decoded in parallel on the pool.
+    public static List<List<Word>> read(String filename, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a dictionary snapshot: " + filename);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(fileSize, HEADER_SIZE + (long) BUCKETS * ENTRY_SIZE));
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a dictionary snapshot: " + filename);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int buckets = header.getInt();
+            if (buckets != BUCKETS || header.remaining() < BUCKETS * ENTRY_SIZE) {
+                throw new IOException("Corrupt snapshot header: " + filename);
+            }
+
+            char[] letters = new char[BUCKETS];
+            int[] counts = new int[BUCKETS];
+            long[] offsets = new long[BUCKETS + 1];
+            for (int i = 0; i < BUCKETS; i++) {
+                letters[i] = header.getChar();
+                counts[i] = header.getInt();
+                offsets[i] = header.getLong();
+            }
+            offsets[BUCKETS] = fileSize;
+
+            // Shared by every bucket so a meaning repeated across letters is stored once
+            StringPool strings = new StringPool();
+            List<Future<List<Word>>> decoded = new ArrayList<>(BUCKETS);
+            for (int i = 0; i < BUCKETS; i++) {
+                if (letters[i] != 'A' + i || offsets[i] > offsets[i + 1]) {
+                    throw new IOException("Corrupt snapshot bucket table: " + filename);
+                }
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                        offsets[i], offsets[i + 1] - offsets[i]);
+                int count = counts[i];
+                decoded.add(pool.submit(() -> readBucket(region, count, strings)));
+            }
+
+            List<List<Word>> groups = new ArrayList<>(BUCKETS);
+            for (Future<List<Word>> future : decoded) {
+                groups.add(future.get());
+            }
+            return groups;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Snapshot load interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Corrupt snapshot: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static List<Word> readBucket(MappedByteBuffer region, int count, StringPool strings) {
+        FieldDecoder fields = new FieldDecoder(region);
+        List<Word> words = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String word = fields.next();
+            String englishMeaning = fields.next();
+            String arabicMeaning = fields.next();
+            String example = fields.next();
+            String type = fields.next();
+            words.add(new Word(word, strings.intern(englishMeaning), strings.intern(arabicMeaning),
+                    strings.intern(example), type));
+        }
+        return words;
+    }
+
+    // Decodes length-prefixed UTF-8 fields one after another from a region
+    private static class FieldDecoder {
+        private final MappedByteBuffer region;
+        private final CharsetDecoder decoder;
+        private CharBuffer chars;
+
+        FieldDecoder(MappedByteBuffer region) {
+            this.region = region;
+            this.decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            this.chars = CharBuffer.allocate(256);
+        }
+
+        String next() {
+            int length = region.getInt();
+            if (length < 0 || length > region.remaining()) {
+                throw new IllegalStateException("bad field length " + length);
+            }
+            if (length == 0) {
+                return "";
+            }
+
+            if (chars.capacity() < length) {
+                chars = CharBuffer.allocate(length);
+            }
+            int end = region.position() + length;
+            int limit = region.limit();
+            region.limit(end);
+
+            chars.clear();
+            decoder.reset();
+            if (decoder.decode(region, chars, true).isError()) {
+                throw new IllegalStateException("invalid UTF-8 at " + region.position());
+            }
+            decoder.flush(chars);
+            region.limit(limit);
+            region.position(end);
+            return new String(chars.array(), 0, chars.position());
+        }
+    }
+
+    // Returns the number of bytes written for the field
+    private static int putField(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(bytes.length);
+
+        int written = 0;
+        while (written < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, n);
+            written += n;
+        }
+        return 4 + bytes.length;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+// Deduplicates equal strings while a dictionary is loaded, so meanings and
+// examples repeated across many words share one String. A pool lives only
+// as long as the load that uses it. Safe for concurrent use.
+public class StringPool {
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    // The pooled instance equal to s
+    public String intern(String s) {
+        if (s == null || s.isEmpty()) {
+            return s;
+        }
+        String existing = strings.putIfAbsent(s, s);
+        return existing != null ? existing : s;
+    }
+
+    // Number of distinct strings seen
+    public int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+// Words grouped by type (ignoring case) for O(1) counts and uniform random
+// picks. Each type keeps its words in an array plus the slot of every word,
+// so a removal moves the last word into the hole instead of shifting.
+public class TypeIndex {
+    private static final String[] STANDARD_TYPES = {"Noun", "Verb", "Adjective", "Adverb", "Other"};
+
+    private final Map<String, Bag> bags = new LinkedHashMap<>();
+
+    public TypeIndex() {
+        for (String type : STANDARD_TYPES) {
+            bags.put(keyOf(type), new Bag(type));
+        }
+    }
+
+    public synchronized void add(Word word) {
+        String type = word.getType();
+        Bag bag = bags.computeIfAbsent(keyOf(type), key -> new Bag(type));
+        bag.slots.put(word, bag.words.size());
+        bag.words.add(word);
+    }
+
+    public synchronized void remove(Word word) {
+        Bag bag = bags.get(keyOf(word.getType()));
+        if (bag == null) {
+            return;
+        }
+        Integer slot = bag.slots.remove(word);
+        if (slot == null) {
+            return;
+        }
+
+        Word last = bag.words.remove(bag.words.size() - 1);
+        if (last != word) {
+            bag.words.set(slot, last);
+            bag.slots.put(last, slot);
+        }
+    }
+
+    public synchronized int count(String type) {
+        Bag bag = bags.get(keyOf(type));
+        return bag == null ? 0 : bag.words.size();
+    }
+
+    // Uniformly random word of the type, or null if there is none
+    public synchronized Word random(String type, Random random) {
+        Bag bag = bags.get(keyOf(type));
+        if (bag == null || bag.words.isEmpty()) {
+            return null;
+        }
+        return bag.words.get(random.nextInt(bag.words.size()));
+    }
+
+    // Every non-empty type with its count
+    public synchronized List<DLinkedList.TypeCount> counts() {
+        List<DLinkedList.TypeCount> counts = new ArrayList<>();
+        for (Bag bag : bags.values()) {
+            if (!bag.words.isEmpty()) {
+                counts.add(new DLinkedList.TypeCount(bag.name, bag.words.size()));
+            }
+        }
+        return counts;
+    }
+
+    // Counts in the order counts() uses, from word counts per Word type code
+    public static List<DLinkedList.TypeCount> count(int[] codeCounts) {
+        Map<String, DLinkedList.TypeCount> counts = new LinkedHashMap<>();
+        for (String type : STANDARD_TYPES) {
+            counts.put(keyOf(type), new DLinkedList.TypeCount(type, 0));
+        }
+        for (int code = 0; code < codeCounts.length; code++) {
+            if (codeCounts[code] > 0) {
+                String type = Word.typeName(code);
+                counts.computeIfAbsent(keyOf(type), key -> new DLinkedList.TypeCount(type, 0)).count += codeCounts[code];
+            }
+        }
+
+        List<DLinkedList.TypeCount> result = new ArrayList<>();
+        for (DLinkedList.TypeCount count : counts.values()) {
+            if (count.count > 0) {
+                result.add(count);
+            }
+        }
+        return result;
+    }
+
+    private static String keyOf(String type) {
+        return type.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Bag {
+        final String name; // spelling shown in statistics
+        final List<Word> words = new ArrayList<>();
+        final Map<Word, Integer> slots = new IdentityHashMap<>();
+
+        Bag(String name) {
+            this.name = name;
+        }
+    }
+}
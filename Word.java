@@ -1,28 +1,118 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class Word implements Comparable<Word> {
-    private String word;
-    private String englishMeaning;
-    private String arabicMeaning;
-    private String example;
-    private String type;
+    // Orders a key in any case against a word exactly like compareTo, so a
+    // CharSequence can be looked up without building a probe Word
+    public static final OrderedIndex.KeyComparator<CharSequence, Word> ENGLISH_KEY = (key, other) -> {
+        String word = other.key;
+        int n = Math.min(key.length(), word.length());
+        for (int i = 0; i < n; i++) {
+            char a = fold(key.charAt(i));
+            char b = word.charAt(i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return key.length() - word.length();
+    };
+
+    // Orders a key already folded with foldKey against a word
+    public static final OrderedIndex.KeyComparator<String, Word> KEY_ORDER = (key, other) -> key.compareTo(other.key);
+
+    // Types repeat across millions of words, so each Word keeps a small
+    // code instead of a String. The standard types come first; free-form
+    // types get the next code the first time they appear. The table is
+    // static, so it is shared by every dictionary in the JVM, and codes are
+    // never freed: it only grows, by one entry per distinct type ever seen.
+    private static final Map<String, Character> typeCodes = new ConcurrentHashMap<>();
+    private static volatile String[] typeNames = new String[0];
+
+    static {
+        for (String type : new String[] {"Noun", "Verb", "Adjective", "Adverb", "Other"}) {
+            typeCode(type);
+        }
+    }
+
+    private static char typeCode(String type) {
+        Character code = typeCodes.get(type);
+        if (code != null) {
+            return code;
+        }
+        synchronized (typeCodes) {
+            code = typeCodes.get(type);
+            if (code != null) {
+                return code;
+            }
+            String[] names = typeNames;
+            if (names.length > Character.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct word types");
+            }
+            String[] grown = Arrays.copyOf(names, names.length + 1);
+            grown[names.length] = type;
+            typeNames = grown; // publish the name before the code
+            code = (char) names.length;
+            typeCodes.put(type, code);
+            return code;
+        }
+    }
+
+    // Immutable: the dictionary shares stored words with unlocked readers,
+    // so an update builds a new Word and swaps it in
+    private final String word;
+    private final String englishMeaning;
+    private final String arabicMeaning;
+    private final String example;
+    private final char type;        // code into typeNames
+    private final String key;       // case-folded word, used for ordering
+    private final String arabicKey; // normalized arabicMeaning, used by the Arabic index
 
     public Word(String word, String englishMeaning, String arabicMeaning,
                 String example, String type) {
         this.word = word;
+        this.key = foldKey(word);
         this.englishMeaning = englishMeaning;
         this.arabicMeaning = arabicMeaning;
+        this.arabicKey = ArabicNormalizer.normalize(arabicMeaning);
         this.example = example;
-        this.type = type;
+        this.type = typeCode(type);
     }
 
+    // Same order as compareToIgnoreCase, with the folding done once per word
     @Override
     public int compareTo(Word other) {
-        return this.word.compareToIgnoreCase(other.word);
+        return this.key.compareTo(other.key);
+    }
+
+    // Each char folded like compareToIgnoreCase does; returns s itself
+    // (no copy) when it is a String that is already folded
+    public static String foldKey(CharSequence s) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (fold(c) != c) {
+                char[] folded = new char[n];
+                for (int j = 0; j < n; j++) {
+                    folded[j] = fold(s.charAt(j));
+                }
+                return new String(folded);
+            }
+        }
+        return s.toString();
+    }
+
+    static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
     }
 
     @Override
     public String toString() {
         return word + ";" + englishMeaning + ";" + arabicMeaning +
-                ";" + example + ";" + type;
+                ";" + example + ";" + getType();
     }
 
     public static Word fromString(String line) {
@@ -37,11 +127,10 @@ public class Word implements Comparable<Word> {
     public String getEnglishMeaning() { return englishMeaning; }
     public String getArabicMeaning() { return arabicMeaning; }
     public String getExample() { return example; }
-    public String getType() { return type; }
-
-    public void setWord(String word) { this.word = word; }
-    public void setEnglishMeaning(String englishMeaning) { this.englishMeaning = englishMeaning; }
-    public void setArabicMeaning(String arabicMeaning) { this.arabicMeaning = arabicMeaning; }
-    public void setExample(String example) { this.example = example; }
-    public void setType(String type) { this.type = type; }
+    public String getType() { return typeNames[type]; }
+    // Code of the type in the shared table; typeName turns it back
+    public char getTypeCode() { return type; }
+    public static String typeName(int code) { return typeNames[code]; }
+    public String getKey() { return key; }
+    public String getArabicKey() { return arabicKey; }
 }
\ No newline at end of file